@@ -16,5 +16,6 @@ export interface NewsPage {
   totalPages: number;
   size: number;
   number: number;
+  nextCursor?: string | null;
 }
 
@@ -0,0 +1,56 @@
+package com.crawl.chungkhoan.config;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.brotli.BrotliInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OkHttpClient dùng chung cho tất cả crawler
+ * Giữ connection keep-alive, HTTP/2 và tự giải nén gzip/brotli
+ */
+@Configuration
+@Slf4j
+public class HttpClientConfig {
+
+    @Value("${crawler.http.connect-timeout-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${crawler.http.read-timeout-ms:15000}")
+    private long readTimeoutMs;
+
+    @Value("${crawler.http.call-timeout-ms:30000}")
+    private long callTimeoutMs;
+
+    @Value("${crawler.http.max-idle-connections:10}")
+    private int maxIdleConnections;
+
+    @Value("${crawler.http.keep-alive-minutes:5}")
+    private long keepAliveMinutes;
+
+    @Bean
+    public OkHttpClient crawlerHttpClient() {
+        log.info("Creating shared OkHttpClient (connect: {}ms, read: {}ms, pool: {} idle / {}m keep-alive)",
+                connectTimeoutMs, readTimeoutMs, maxIdleConnections, keepAliveMinutes);
+
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMinutes, TimeUnit.MINUTES))
+                .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .callTimeout(Duration.ofMillis(callTimeoutMs))
+                .followRedirects(true)
+                .followSslRedirects(true)
+                // Gửi Accept-Encoding: br,gzip và giải nén response
+                .addInterceptor(BrotliInterceptor.INSTANCE)
+                .build();
+    }
+}
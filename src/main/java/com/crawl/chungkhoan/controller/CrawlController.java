@@ -1,8 +1,13 @@
 package com.crawl.chungkhoan.controller;
 
+import com.crawl.chungkhoan.crawler.FetchValidatorCache;
+import com.crawl.chungkhoan.crawler.PolitenessManager;
+import com.crawl.chungkhoan.crawler.WebDriverPool;
 import com.crawl.chungkhoan.model.User;
+import com.crawl.chungkhoan.service.ArticleDetailService;
+import com.crawl.chungkhoan.service.CrawlSchedulerService;
 import com.crawl.chungkhoan.service.CrawlService;
-import com.crawl.chungkhoan.service.SeleniumCrawlService;
+import com.crawl.chungkhoan.service.HybridCrawlService;
 import com.crawl.chungkhoan.service.RateLimitService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +18,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,28 +28,33 @@ import java.util.Map;
 public class CrawlController {
 
     private final CrawlService crawlService;
-    private final SeleniumCrawlService seleniumCrawlService;
+    private final HybridCrawlService hybridCrawlService;
     private final RateLimitService rateLimitService;
+    private final FetchValidatorCache fetchValidatorCache;
+    private final CrawlSchedulerService crawlSchedulerService;
+    private final ArticleDetailService articleDetailService;
+    private final PolitenessManager politenessManager;
+    private final WebDriverPool webDriverPool;
 
     /**
-     * Trigger crawl manually - Chỉ admin - Dùng Selenium
+     * Trigger crawl manually - Chỉ admin - HTML tĩnh trước, Selenium khi cần
      */
     @PostMapping("/trigger")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Map<String, String>> triggerCrawl() {
-        log.info("Manual Selenium crawl triggered by admin");
+        log.info("Manual crawl triggered by admin");
 
         try {
             // Chạy async để không block request
-            new Thread(() -> seleniumCrawlService.crawlAllSources()).start();
+            new Thread(() -> hybridCrawlService.crawlAllSources()).start();
 
             Map<String, String> response = new HashMap<>();
-            response.put("message", "Selenium crawl started successfully");
+            response.put("message", "Crawl started successfully");
             response.put("status", "RUNNING");
 
             return ResponseEntity.ok(response);
         } catch (Exception e) {
-            log.error("Error triggering Selenium crawl: {}", e.getMessage());
+            log.error("Error triggering crawl: {}", e.getMessage());
 
             Map<String, String> response = new HashMap<>();
             response.put("message", "Error starting crawl: " + e.getMessage());
@@ -83,11 +94,11 @@ public class CrawlController {
             // Record crawl time
             rateLimitService.recordCrawl(user);
 
-            // Start Selenium crawl async với số lượng items tùy chỉnh
-            new Thread(() -> seleniumCrawlService.crawlAllSources(itemsPerSource)).start();
+            // Start crawl async với số lượng items tùy chỉnh
+            new Thread(() -> hybridCrawlService.crawlAllSources(itemsPerSource)).start();
 
             Map<String, Object> response = new HashMap<>();
-            response.put("message", "Selenium crawl started successfully");
+            response.put("message", "Crawl started successfully");
             response.put("status", "RUNNING");
             response.put("tier", user.getSubscriptionTier().toString());
             response.put("canCrawl", true);
@@ -129,5 +140,58 @@ public class CrawlController {
 
         return ResponseEntity.ok(response);
     }
-}
 
+    /**
+     * Thống kê conditional GET theo source - Chỉ admin
+     */
+    @GetMapping("/fetch-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Map<String, Object>>> getFetchStats() {
+        return ResponseEntity.ok(fetchValidatorCache.getStats());
+    }
+
+    /**
+     * Lịch crawl tự động của các source - Chỉ admin
+     */
+    @GetMapping("/schedule")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getSchedule() {
+        return ResponseEntity.ok(crawlSchedulerService.getSchedule());
+    }
+
+    /**
+     * Thống kê pipeline fetch chi tiết bài viết - Chỉ admin
+     */
+    @GetMapping("/detail-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getDetailStats() {
+        return ResponseEntity.ok(articleDetailService.getStats());
+    }
+
+    /**
+     * Thống kê giới hạn tốc độ theo host - Chỉ admin
+     */
+    @GetMapping("/politeness-stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Map<String, Object>>> getPolitenessStats() {
+        return ResponseEntity.ok(politenessManager.getStats());
+    }
+
+    /**
+     * Trạng thái pool Chrome - Chỉ admin
+     */
+    @GetMapping("/driver-pool")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getDriverPoolStats() {
+        return ResponseEntity.ok(webDriverPool.getStats());
+    }
+
+    /**
+     * Chế độ crawl (static / browser) của từng source - Chỉ admin
+     */
+    @GetMapping("/modes")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> getCrawlModes() {
+        return ResponseEntity.ok(hybridCrawlService.getModes());
+    }
+}
@@ -1,13 +1,22 @@
 package com.crawl.chungkhoan.controller;
 
-import com.crawl.chungkhoan.service.StockMarketService;
+import com.crawl.chungkhoan.dto.MarketPart;
+import com.crawl.chungkhoan.dto.MarketSnapshot;
+import com.crawl.chungkhoan.dto.TickSummary;
+import com.crawl.chungkhoan.service.MarketSnapshotService;
+import com.crawl.chungkhoan.service.MarketStreamService;
+import com.crawl.chungkhoan.storage.TickStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,104 +25,144 @@ import java.util.Map;
 @Slf4j
 public class MarketController {
 
-    private final StockMarketService stockMarketService;
+    private final MarketSnapshotService marketSnapshotService;
+    private final MarketStreamService marketStreamService;
+    private final TickStore tickStore;
 
     /**
      * Lấy dữ liệu cổ phiếu
      */
     @GetMapping("/stocks")
-    public ResponseEntity<Map<String, Object>> getStocks() {
-        log.info("Fetching stock market data");
-
-        try {
-            List<Map<String, Object>> stocks = stockMarketService.getStockData();
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("data", stocks);
-            response.put("count", stocks.size());
-            response.put("type", "stocks");
-
-            if (stocks.isEmpty()) {
-                response.put("message", "Dữ liệu cổ phiếu tạm thời không khả dụng");
-            }
-
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error fetching stocks: {}", e.getMessage());
-            return ResponseEntity.internalServerError().build();
-        }
+    public ResponseEntity<Map<String, Object>> getStocks(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return snapshotResponse(MarketSnapshotService.STOCKS, ifNoneMatch,
+                "Dữ liệu cổ phiếu tạm thời không khả dụng");
     }
 
     /**
      * Lấy dữ liệu trái phiếu
      */
     @GetMapping("/bonds")
-    public ResponseEntity<Map<String, Object>> getBonds() {
-        log.info("Fetching bond market data");
+    public ResponseEntity<Map<String, Object>> getBonds(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return snapshotResponse(MarketSnapshotService.BONDS, ifNoneMatch,
+                "Dữ liệu trái phiếu tạm thời không khả dụng");
+    }
 
+    /**
+     * Lấy dữ liệu chứng chỉ quỹ
+     */
+    @GetMapping("/funds")
+    public ResponseEntity<Map<String, Object>> getFunds(
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return snapshotResponse(MarketSnapshotService.FUNDS, ifNoneMatch,
+                "Dữ liệu chứng chỉ quỹ tạm thời không khả dụng");
+    }
+
+    /**
+     * Lấy tất cả dữ liệu thị trường, các phần được lấy đồng thời
+     * Phần chậm / lỗi không chặn các phần khác: trả kết quả từng phần kèm trạng thái
+     */
+    @GetMapping("/all")
+    public ResponseEntity<Map<String, Object>> getAllMarketData() {
         try {
-            List<Map<String, Object>> bonds = stockMarketService.getBondData();
+            Map<String, MarketPart> parts = marketSnapshotService.getAll();
 
             Map<String, Object> response = new HashMap<>();
-            response.put("data", bonds);
-            response.put("count", bonds.size());
-            response.put("type", "bonds");
-
-            if (bonds.isEmpty()) {
-                response.put("message", "Dữ liệu trái phiếu tạm thời không khả dụng");
+            Map<String, MarketPart.Status> status = new HashMap<>();
+            boolean partial = false;
+            for (Map.Entry<String, MarketPart> entry : parts.entrySet()) {
+                MarketPart part = entry.getValue();
+                response.put(entry.getKey(), part.getData());
+                response.put(entry.getKey() + "AsOf", part.getAsOf());
+                status.put(entry.getKey(), part.getStatus());
+                if (part.getStatus() != MarketPart.Status.OK) {
+                    response.put(entry.getKey() + "Error", part.getError());
+                    partial = true;
+                }
             }
+            response.put("status", status);
+            response.put("partial", partial);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok()
+                    .cacheControl(CacheControl.noCache())
+                    .body(response);
         } catch (Exception e) {
-            log.error("Error fetching bonds: {}", e.getMessage());
+            log.error("Error fetching all market data: {}", e.getMessage());
             return ResponseEntity.internalServerError().build();
         }
     }
 
     /**
-     * Lấy dữ liệu chứng chỉ quỹ
+     * Stream các quote cổ phiếu thay đổi (Server-Sent Events)
+     * Event "snapshot": toàn bộ quote khi mới kết nối, "quotes": các mã thay đổi
      */
-    @GetMapping("/funds")
-    public ResponseEntity<Map<String, Object>> getFunds() {
-        log.info("Fetching fund market data");
-
-        try {
-            List<Map<String, Object>> funds = stockMarketService.getFundData();
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamQuotes() {
+        return marketStreamService.subscribe();
+    }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("data", funds);
-            response.put("count", funds.size());
-            response.put("type", "funds");
+    /**
+     * Lịch sử giá trong ngày của một mã: quote mới nhất, thay đổi so với mở cửa
+     * và các tick trong N phút gần nhất
+     */
+    @GetMapping("/ticks/{symbol}")
+    public ResponseEntity<Map<String, Object>> getTicks(
+            @PathVariable String symbol,
+            @RequestParam(defaultValue = "60") int minutes) {
+        String key = symbol.toUpperCase();
+        TickSummary latest = tickStore.latest(key);
+        if (latest == null) {
+            return ResponseEntity.notFound().build();
+        }
 
-            if (funds.isEmpty()) {
-                response.put("message", "Dữ liệu chứng chỉ quỹ tạm thời không khả dụng");
-            }
+        long now = System.currentTimeMillis();
+        Map<String, Object> response = new HashMap<>();
+        response.put("latest", latest);
+        response.put("window", tickStore.window(key, now - Duration.ofMinutes(minutes).toMillis(), now));
+        response.put("minutes", minutes);
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error fetching funds: {}", e.getMessage());
-            return ResponseEntity.internalServerError().build();
-        }
+        return ResponseEntity.ok(response);
     }
 
     /**
-     * Lấy tất cả dữ liệu thị trường
+     * Trả snapshot từ cache kèm asOf, ETag và Cache-Control
+     * If-None-Match được Spring so với ETag của ResponseEntity (weak tag, danh sách tag), khớp thì trả 304
+     * Spring bỏ qua "*" với GET nên xử lý riêng: luôn có snapshot nên "*" luôn khớp (RFC 9110 13.1.2)
      */
-    @GetMapping("/all")
-    public ResponseEntity<Map<String, Object>> getAllMarketData() {
-        log.info("Fetching all market data");
-        
+    private ResponseEntity<Map<String, Object>> snapshotResponse(String type, String ifNoneMatch, String emptyMessage) {
         try {
+            MarketSnapshot snapshot = marketSnapshotService.get(type);
+
+            CacheControl cacheControl = CacheControl
+                    .maxAge(Duration.ofSeconds(marketSnapshotService.remainingFreshSeconds(snapshot)))
+                    .staleWhileRevalidate(Duration.ofSeconds(marketSnapshotService.getMaxStaleSeconds()))
+                    .cachePublic();
+
+            if (ifNoneMatch != null && "*".equals(ifNoneMatch.trim())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(snapshot.getEtag())
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+
             Map<String, Object> response = new HashMap<>();
-            response.put("stocks", stockMarketService.getStockData());
-            response.put("bonds", stockMarketService.getBondData());
-            response.put("funds", stockMarketService.getFundData());
-            
-            return ResponseEntity.ok(response);
+            response.put("data", snapshot.getData());
+            response.put("count", snapshot.getData().size());
+            response.put("type", type);
+            response.put("asOf", snapshot.getAsOf());
+
+            if (snapshot.getData().isEmpty()) {
+                response.put("message", emptyMessage);
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(snapshot.getEtag())
+                    .cacheControl(cacheControl)
+                    .body(response);
         } catch (Exception e) {
-            log.error("Error fetching all market data: {}", e.getMessage());
+            log.error("Error fetching {}: {}", type, e.getMessage());
             return ResponseEntity.internalServerError().build();
         }
     }
 }
-
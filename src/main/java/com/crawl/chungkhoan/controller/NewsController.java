@@ -4,11 +4,13 @@ import com.crawl.chungkhoan.dto.NewsResponse;
 import com.crawl.chungkhoan.dto.PageResponse;
 import com.crawl.chungkhoan.model.News;
 import com.crawl.chungkhoan.repository.NewsRepository;
+import com.crawl.chungkhoan.storage.NewsCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -16,21 +18,34 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class NewsController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final NewsRepository newsRepository;
 
+    /**
+     * Có cursor (nextCursor của trang trước) thì seek thẳng tới vị trí đó, page chỉ còn để hiển thị
+     * Không có cursor thì phân trang theo page như cũ
+     */
     @GetMapping
     public ResponseEntity<PageResponse<NewsResponse>> getAllNews(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor
     ) {
-        List<News> allNews = newsRepository.findAll();
+        NewsCursor after;
+        try {
+            after = cursor != null ? NewsCursor.parse(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
 
-        int totalElements = allNews.size();
+        long totalElements = newsRepository.count();
         int totalPages = (int) Math.ceil((double) totalElements / size);
 
-        List<NewsResponse> content = allNews.stream()
-                .skip((long) page * size)
-                .limit(size)
+        List<News> news = after != null || page == 0
+                ? newsRepository.findPageAfter(after, size)
+                : newsRepository.findPage(page, size);
+        List<NewsResponse> content = news.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
 
@@ -39,7 +54,8 @@ public class NewsController {
                 page,
                 size,
                 totalElements,
-                totalPages
+                totalPages,
+                nextCursor(news, size)
         );
 
         return ResponseEntity.ok(response);
@@ -51,28 +67,48 @@ public class NewsController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size
     ) {
-        List<News> allNews = newsRepository.searchByKeyword(keyword);
-        List<NewsResponse> response = allNews.stream()
-                .skip((long) page * size)
-                .limit(size)
+        List<NewsResponse> response = newsRepository.search(keyword, page, size).stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Như /api/news: có cursor thì seek trong index của nguồn; cursor trang sau trả về ở header X-Next-Cursor
+     */
     @GetMapping("/source/{source}")
     public ResponseEntity<List<NewsResponse>> getNewsBySource(
             @PathVariable String source,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor
     ) {
-        List<News> allNews = newsRepository.findBySource(source);
-        List<NewsResponse> response = allNews.stream()
-                .skip((long) page * size)
-                .limit(size)
+        NewsCursor after;
+        try {
+            after = cursor != null ? NewsCursor.parse(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<News> news = after != null || page == 0
+                ? newsRepository.findPageBySourceAfter(source, after, size)
+                : newsRepository.findPageBySource(source, page, size);
+        List<NewsResponse> response = news.stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
-        return ResponseEntity.ok(response);
+
+        String nextCursor = nextCursor(news, size);
+        return nextCursor != null
+                ? ResponseEntity.ok().header(NEXT_CURSOR_HEADER, nextCursor).body(response)
+                : ResponseEntity.ok(response);
+    }
+
+    /**
+     * Số tin theo từng nguồn
+     */
+    @GetMapping("/sources")
+    public ResponseEntity<Map<String, Integer>> getSourceCounts() {
+        return ResponseEntity.ok(newsRepository.countBySources());
     }
 
     @GetMapping("/{id}")
@@ -83,6 +119,10 @@ public class NewsController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    private static String nextCursor(List<News> page, int size) {
+        return page.size() == size && size > 0 ? NewsCursor.of(page.get(page.size() - 1)).toString() : null;
+    }
+
     private NewsResponse convertToResponse(News news) {
         return NewsResponse.builder()
                 .id(news.getId())
@@ -0,0 +1,103 @@
+package com.crawl.chungkhoan.crawler;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter cho string, thread-safe, kích thước cố định theo số phần tử dự kiến
+ * mightContain = false thì chắc chắn chưa thấy; true thì có thể đã thấy (false positive ~ fpp)
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final LongAdder insertions = new LongAdder();
+
+    /**
+     * @param expectedInsertions Số phần tử dự kiến
+     * @param falsePositiveRate  Tỉ lệ false positive mong muốn khi đủ expectedInsertions
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    public boolean mightContain(String value) {
+        long hash = hash64(value);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Thêm phần tử, trả về true nếu có bit mới được bật (phần tử chắc chắn mới)
+     */
+    public boolean put(String value) {
+        long hash = hash64(value);
+        long h1 = hash;
+        long h2 = mix(hash) | 1;
+        boolean changed = false;
+
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            long current;
+            while (((current = bits.get(index)) & mask) == 0) {
+                if (bits.compareAndSet(index, current, current | mask)) {
+                    changed = true;
+                    break;
+                }
+            }
+        }
+
+        if (changed) {
+            insertions.increment();
+        }
+        return changed;
+    }
+
+    public long approximateInsertions() {
+        return insertions.sum();
+    }
+
+    public long sizeInBytes() {
+        return (long) bits.length() * 8;
+    }
+
+    /**
+     * Hash 64-bit của string (FNV-1a trên UTF-16 rồi trộn bit kiểu MurmurHash3)
+     */
+    private static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
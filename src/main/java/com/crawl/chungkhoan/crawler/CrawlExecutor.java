@@ -0,0 +1,154 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.CrawlSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Chạy crawl song song cho nhiều source
+ * Giới hạn tổng số luồng, số luồng mỗi host và deadline cho cả lượt crawl
+ */
+@Component
+@Slf4j
+public class CrawlExecutor {
+
+    @Value("${crawler.parallel.enabled:true}")
+    private boolean parallelEnabled;
+
+    @Value("${crawler.parallel.max-concurrency:4}")
+    private int maxConcurrency;
+
+    @Value("${crawler.parallel.per-host:1}")
+    private int perHostConcurrency;
+
+    @Value("${crawler.parallel.deadline-seconds:120}")
+    private long deadlineSeconds;
+
+    // Map: host -> số permit còn lại
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        executor = Executors.newFixedThreadPool(maxConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "crawl-worker-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("CrawlExecutor initialized (parallel: {}, max concurrency: {}, per host: {}, deadline: {}s)",
+                parallelEnabled, maxConcurrency, perHostConcurrency, deadlineSeconds);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Crawl tất cả sources, song song nếu được bật
+     * Source nào chưa xong khi hết deadline sẽ bị hủy
+     * @return số source hoàn thành trước deadline
+     */
+    public int runAll(List<CrawlSource> sources, Consumer<CrawlSource> task) {
+        long startedAt = System.currentTimeMillis();
+
+        if (!parallelEnabled) {
+            for (CrawlSource source : sources) {
+                runSafely(source, task);
+            }
+            log.info("Sequential crawl finished: {} sources in {} ms",
+                    sources.size(), System.currentTimeMillis() - startedAt);
+            return sources.size();
+        }
+
+        List<Callable<Void>> jobs = new ArrayList<>();
+        for (CrawlSource source : sources) {
+            jobs.add(() -> {
+                runWithHostPermit(source, task);
+                return null;
+            });
+        }
+
+        List<Future<Void>> futures;
+        try {
+            futures = executor.invokeAll(jobs, deadlineSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Parallel crawl interrupted");
+            return 0;
+        }
+
+        int completed = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            if (futures.get(i).isCancelled()) {
+                log.warn("Source {} did not finish before the {}s deadline", sources.get(i).getName(), deadlineSeconds);
+            } else {
+                completed++;
+            }
+        }
+
+        log.info("Parallel crawl finished: {}/{} sources in {} ms",
+                completed, sources.size(), System.currentTimeMillis() - startedAt);
+        return completed;
+    }
+
+    /**
+     * Chạy task cho một source trên worker pool, vẫn giữ giới hạn theo host
+     */
+    public Future<?> submit(CrawlSource source, Runnable task) {
+        return executor.submit(() -> {
+            runWithHostPermit(source, s -> task.run());
+            return null;
+        });
+    }
+
+    /**
+     * Chạy task cho một source, chờ permit của host trước khi bắt đầu
+     */
+    private void runWithHostPermit(CrawlSource source, Consumer<CrawlSource> task) throws InterruptedException {
+        Semaphore permit = hostPermits.computeIfAbsent(hostOf(source.getUrl()),
+                host -> new Semaphore(perHostConcurrency));
+        permit.acquire();
+        try {
+            runSafely(source, task);
+        } finally {
+            permit.release();
+        }
+    }
+
+    private void runSafely(CrawlSource source, Consumer<CrawlSource> task) {
+        try {
+            task.accept(source);
+        } catch (Exception e) {
+            log.error("Error crawling source {}: {}", source.getName(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lấy host từ URL, dùng nguyên URL nếu không parse được
+     */
+    static String hostOf(String url) {
+        if (url == null) {
+            return "";
+        }
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase() : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+}
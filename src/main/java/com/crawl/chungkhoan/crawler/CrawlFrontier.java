@@ -0,0 +1,78 @@
+package com.crawl.chungkhoan.crawler;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Frontier cho một lượt deep crawl trong phạm vi domain của source
+ * Chỉ nhận URL cùng site, đã chuẩn hóa, chưa từng thấy, không vượt quá maxDepth / maxPages
+ */
+public class CrawlFrontier {
+
+    private final String site;
+    private final int maxDepth;
+    private final int maxPages;
+    private final BloomFilter discovered;
+    private final Deque<Entry> queue = new ArrayDeque<>();
+    private int dequeued;
+
+    public CrawlFrontier(String seedUrl, int maxDepth, int maxPages) {
+        this.site = UrlCanonicalizer.siteOf(seedUrl);
+        this.maxDepth = maxDepth;
+        this.maxPages = maxPages;
+        // Mỗi trang listing có khoảng vài trăm link
+        this.discovered = new BloomFilter((long) maxPages * 200, 0.001);
+        offer(seedUrl, 0);
+    }
+
+    /**
+     * Thêm URL vào frontier
+     * @return true nếu URL được nhận
+     */
+    public boolean offer(String url, int depth) {
+        if (url == null || depth > maxDepth || dequeued + queue.size() >= maxPages) {
+            return false;
+        }
+        if (!url.startsWith("http")) {
+            return false;
+        }
+
+        String canonical = UrlCanonicalizer.canonicalize(url);
+        String urlSite = UrlCanonicalizer.siteOf(canonical);
+        if (urlSite == null || !(urlSite.equals(site) || urlSite.endsWith("." + site))) {
+            return false;
+        }
+
+        if (!discovered.put(canonical)) {
+            return false;
+        }
+
+        queue.addLast(new Entry(canonical, depth));
+        return true;
+    }
+
+    /**
+     * URL tiếp theo cần fetch, null nếu hết
+     */
+    public Entry next() {
+        Entry entry = queue.pollFirst();
+        if (entry != null) {
+            dequeued++;
+        }
+        return entry;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String url;
+        private final int depth;
+    }
+}
@@ -0,0 +1,33 @@
+package com.crawl.chungkhoan.crawler;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Kết quả crawl một source: số bài hợp lệ trích xuất được và số tin mới lưu
+ * changed = false khi trang không đổi so với lần trước (304 hoặc cùng digest)
+ * page: trang listing đã xử lý, validators của nó chỉ được commit khi kết quả được chấp nhận
+ * failed = true khi không fetch được trang (timeout, 5xx, robots chặn...): không nói gì về số bài của trang
+ */
+@Data
+@AllArgsConstructor
+public class CrawlResult {
+
+    public static final CrawlResult EMPTY = new CrawlResult(0, 0, true);
+    public static final CrawlResult UNCHANGED = new CrawlResult(0, 0, false);
+    public static final CrawlResult FAILED = new CrawlResult(0, 0, false, null, true);
+
+    private final int extracted;
+    private final int saved;
+    private final boolean changed;
+    private final FetchResult page;
+    private final boolean failed;
+
+    public CrawlResult(int extracted, int saved, boolean changed) {
+        this(extracted, saved, changed, null, false);
+    }
+
+    public CrawlResult(int extracted, int saved, boolean changed, FetchResult page) {
+        this(extracted, saved, changed, page, false);
+    }
+}
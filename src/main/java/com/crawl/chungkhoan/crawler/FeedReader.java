@@ -0,0 +1,164 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Đọc RSS 2.0 / Atom bằng StAX, map từng item thành News
+ * Dừng ở item đầu tiên đã có trong storage (feed sắp xếp mới nhất trước)
+ */
+@Component
+@Slf4j
+public class FeedReader {
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public FeedReader() {
+        xmlInputFactory = XMLInputFactory.newFactory();
+        // Không xử lý DTD / external entity (chống XXE)
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Đọc tối đa limit item mới từ feed
+     * @param isKnown Kiểm tra URL đã có trong storage chưa
+     */
+    public List<News> read(FetchResult page, CrawlSource source, int limit, Predicate<String> isKnown)
+            throws XMLStreamException {
+        String sourceName = source.getName().toUpperCase();
+        List<News> newsList = new ArrayList<>();
+
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(page.getBody()));
+        try {
+            FeedItem item = null;
+
+            while (reader.hasNext() && newsList.size() < limit) {
+                int event = reader.next();
+
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("item".equals(name) || "entry".equals(name)) {
+                        item = new FeedItem();
+                    } else if (item != null) {
+                        readField(reader, name, item);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && item != null) {
+                    String name = reader.getLocalName();
+                    if (!"item".equals(name) && !"entry".equals(name)) continue;
+
+                    String url = item.link != null ? item.link : item.guid;
+                    if (url == null || !url.startsWith("http") || item.title == null) {
+                        item = null;
+                        continue;
+                    }
+
+                    if (isKnown.test(url)) {
+                        log.debug("{}: Reached already stored item {}, stopping", sourceName, url);
+                        break;
+                    }
+
+                    newsList.add(toNews(item, url, sourceName));
+                    item = null;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+
+        return newsList;
+    }
+
+    /**
+     * Đọc một field của item/entry đang mở
+     */
+    private void readField(XMLStreamReader reader, String name, FeedItem item) throws XMLStreamException {
+        switch (name) {
+            case "title" -> item.title = reader.getElementText().trim();
+            case "link" -> {
+                // Atom: <link rel="alternate" href="..."/>, RSS: <link>...</link>
+                String href = reader.getAttributeValue(null, "href");
+                if (href != null) {
+                    String rel = reader.getAttributeValue(null, "rel");
+                    if (item.link == null && (rel == null || "alternate".equals(rel))) {
+                        item.link = href.trim();
+                    }
+                } else {
+                    item.link = reader.getElementText().trim();
+                }
+            }
+            case "guid", "id" -> item.guid = reader.getElementText().trim();
+            case "description", "summary" -> item.description = reader.getElementText();
+            case "pubDate", "published", "date" -> item.published = reader.getElementText();
+            case "updated" -> {
+                if (item.published == null) {
+                    item.published = reader.getElementText();
+                }
+            }
+            case "enclosure", "thumbnail", "content" -> {
+                // <enclosure type="image/jpeg" url=...>, <media:thumbnail url=...>, <media:content url=...>
+                String url = reader.getAttributeValue(null, "url");
+                String type = reader.getAttributeValue(null, "type");
+                if (item.imageUrl == null && url != null && (type == null || type.startsWith("image"))) {
+                    item.imageUrl = url;
+                }
+            }
+            default -> {
+                // Bỏ qua các field khác
+            }
+        }
+    }
+
+    private News toNews(FeedItem item, String url, String sourceName) {
+        String description = "";
+        String imageUrl = item.imageUrl;
+
+        // Description trong RSS thường là HTML, lấy text và ảnh đầu tiên
+        if (item.description != null) {
+            Document fragment = Jsoup.parseBodyFragment(item.description, url);
+            description = fragment.text().trim();
+            if (imageUrl == null) {
+                Element img = fragment.selectFirst("img[src]");
+                imageUrl = img != null ? img.absUrl("src") : null;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime publishedAt = NewsExtractor.parsePublishedAt(item.published);
+
+        return News.builder()
+                .title(item.title)
+                .url(url)
+                .urlHash(UrlCanonicalizer.urlHash(url))
+                .source(sourceName)
+                .description(description)
+                .imageUrl(imageUrl)
+                .publishedAt(publishedAt != null ? publishedAt : now)
+                .crawledAt(now)
+                .build();
+    }
+
+    private static class FeedItem {
+        private String title;
+        private String link;
+        private String guid;
+        private String description;
+        private String published;
+        private String imageUrl;
+    }
+}
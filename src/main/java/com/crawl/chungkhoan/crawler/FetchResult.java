@@ -0,0 +1,146 @@
+package com.crawl.chungkhoan.crawler;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jsoup.nodes.Document;
+import org.jsoup.parser.Parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Kết quả fetch một trang: nội dung mới, 304 hoặc nội dung không đổi
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class FetchResult {
+
+    // Số byte đầu body được quét để tìm thẻ meta charset
+    private static final int META_SNIFF_BYTES = 5000;
+    private static final Pattern META_CHARSET = Pattern.compile(
+            "<meta[^>]+charset\\s*=\\s*[\"']?\\s*([a-zA-Z0-9_.:-]+)", Pattern.CASE_INSENSITIVE);
+
+    private final Status status;
+    private final byte[] body;
+    private final String charset;
+    private final String baseUri;
+
+    // URL đã request và validators mới của nó, chưa ghi vào FetchValidatorCache (xem PageFetcher.commit)
+    private final String url;
+    private final FetchValidatorCache.Validators validators;
+
+    static FetchResult fetched(byte[] body, String charset, String baseUri) {
+        return new FetchResult(Status.FETCHED, body, charset, baseUri, null, null);
+    }
+
+    static FetchResult notModified(String baseUri) {
+        return new FetchResult(Status.NOT_MODIFIED, new byte[0], null, baseUri, null, null);
+    }
+
+    static FetchResult unchanged(String baseUri) {
+        return new FetchResult(Status.UNCHANGED, new byte[0], null, baseUri, null, null);
+    }
+
+    /**
+     * Bản sao mang validators chờ commit
+     */
+    FetchResult withValidators(String url, FetchValidatorCache.Validators validators) {
+        return new FetchResult(status, body, charset, baseUri, url, validators);
+    }
+
+    /**
+     * Trang có nội dung mới cần parse hay không
+     */
+    public boolean isChanged() {
+        return status == Status.FETCHED;
+    }
+
+    /**
+     * Parse body thành DOM, charset theo resolveCharset()
+     */
+    public Document parse() {
+        return Parser.htmlParser().parseInput(reader(), baseUri);
+    }
+
+    /**
+     * Reader trên body (đã bỏ BOM), charset theo resolveCharset()
+     */
+    public Reader reader() {
+        Charset decoder = resolveCharset();
+        int bom = decoder.equals(bomCharset(body)) ? bomLength(body) : 0;
+        return new InputStreamReader(new ByteArrayInputStream(body, bom, body.length - bom), decoder);
+    }
+
+    /**
+     * Charset của body: header Content-Type -> BOM -> thẻ meta -> UTF-8
+     * parse() và reader() cùng dùng nên hai đường parse luôn giải mã giống nhau
+     */
+    public Charset resolveCharset() {
+        Charset fromHeader = lookup(charset);
+        if (fromHeader != null) {
+            return fromHeader;
+        }
+
+        Charset fromBom = bomCharset(body);
+        if (fromBom != null) {
+            return fromBom;
+        }
+
+        // Thẻ meta là ASCII nên đọc tạm bằng ISO-8859-1 là đủ
+        String head = new String(body, 0, Math.min(body.length, META_SNIFF_BYTES), StandardCharsets.ISO_8859_1);
+        Matcher matcher = META_CHARSET.matcher(head);
+        if (matcher.find()) {
+            Charset fromMeta = lookup(matcher.group(1));
+            if (fromMeta != null) {
+                return fromMeta;
+            }
+        }
+
+        return StandardCharsets.UTF_8;
+    }
+
+    private static Charset lookup(String name) {
+        if (name == null || name.isBlank()) {
+            return null;
+        }
+        try {
+            return Charset.forName(name.trim());
+        } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+            return null;
+        }
+    }
+
+    private static Charset bomCharset(byte[] bytes) {
+        if (bytes.length >= 3 && (bytes[0] & 0xFF) == 0xEF && (bytes[1] & 0xFF) == 0xBB && (bytes[2] & 0xFF) == 0xBF) {
+            return StandardCharsets.UTF_8;
+        }
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFE && (bytes[1] & 0xFF) == 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        if (bytes.length >= 2 && (bytes[0] & 0xFF) == 0xFF && (bytes[1] & 0xFF) == 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+
+    private static int bomLength(byte[] bytes) {
+        Charset bom = bomCharset(bytes);
+        if (bom == null) {
+            return 0;
+        }
+        return bom == StandardCharsets.UTF_8 ? 3 : 2;
+    }
+
+    public enum Status {
+        FETCHED, NOT_MODIFIED, UNCHANGED
+    }
+}
@@ -0,0 +1,91 @@
+package com.crawl.chungkhoan.crawler;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lưu ETag / Last-Modified / digest của body theo URL để gửi conditional GET
+ * Đồng thời thống kê tỉ lệ bỏ qua (304 hoặc body không đổi) theo source
+ */
+@Component
+@Slf4j
+public class FetchValidatorCache {
+
+    // Map: url -> validators của lần fetch gần nhất
+    private final Map<String, Validators> validatorsByUrl = new ConcurrentHashMap<>();
+
+    // Map: source -> thống kê fetch
+    private final Map<String, SourceStats> statsBySource = new ConcurrentHashMap<>();
+
+    public Validators get(String url) {
+        return validatorsByUrl.get(url);
+    }
+
+    public void update(String url, Validators validators) {
+        validatorsByUrl.put(url, validators);
+    }
+
+    /**
+     * Ghi nhận kết quả một lần fetch của source
+     */
+    public void record(String source, FetchResult.Status status) {
+        SourceStats stats = statsBySource.computeIfAbsent(source, s -> new SourceStats());
+        switch (status) {
+            case FETCHED -> stats.fetched.increment();
+            case NOT_MODIFIED -> stats.notModified.increment();
+            case UNCHANGED -> stats.unchanged.increment();
+        }
+    }
+
+    /**
+     * Thống kê skip rate theo source
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        statsBySource.forEach((source, stats) -> result.put(source, stats.toMap()));
+        return result;
+    }
+
+    public void clear() {
+        validatorsByUrl.clear();
+        statsBySource.clear();
+        log.info("Cleared fetch validator cache");
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Validators {
+        private String etag;
+        private String lastModified;
+        private String digest;
+    }
+
+    private static class SourceStats {
+        private final LongAdder fetched = new LongAdder();
+        private final LongAdder notModified = new LongAdder();
+        private final LongAdder unchanged = new LongAdder();
+
+        Map<String, Object> toMap() {
+            long fetchedCount = fetched.sum();
+            long notModifiedCount = notModified.sum();
+            long unchangedCount = unchanged.sum();
+            long total = fetchedCount + notModifiedCount + unchangedCount;
+
+            Map<String, Object> map = new HashMap<>();
+            map.put("fetched", fetchedCount);
+            map.put("notModified", notModifiedCount);
+            map.put("unchanged", unchangedCount);
+            map.put("total", total);
+            map.put("skipRate", total == 0 ? 0.0 : (double) (notModifiedCount + unchangedCount) / total);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Extractor chung cho trang listing, đọc selector rules từ CrawlSource
+ * Selector được compile một lần thành Evaluator và cache lại
+ */
+@Component
+@Slf4j
+public class NewsExtractor {
+
+    public static final String DEFAULT_ITEM_SELECTOR = "article";
+    public static final String DEFAULT_TITLE_SELECTOR = "h3 a, h2 a, h4 a, .title a, a[title]";
+    public static final String DEFAULT_DESCRIPTION_SELECTOR = ".sapo, .description, p";
+    public static final String DEFAULT_IMAGE_SELECTOR = "img";
+    public static final String DEFAULT_DATE_SELECTOR = "time";
+
+    private static final DateTimeFormatter[] DATE_TIME_FORMATS = {
+            DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy - HH:mm"),
+            DateTimeFormatter.ofPattern("dd/MM/yyyy, HH:mm"),
+            DateTimeFormatter.ofPattern("HH:mm dd/MM/yyyy"),
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME
+    };
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    // Map: selector string -> Evaluator đã compile
+    private final Map<String, Evaluator> compiledSelectors = new ConcurrentHashMap<>();
+
+    @Value("${crawler.extract.streaming:true}")
+    private boolean streamingExtraction;
+
+    /**
+     * Trích xuất tối đa limit bài hợp lệ từ trang đã fetch
+     * Dùng parse dạng stream nếu được bật
+     */
+    public List<News> extract(FetchResult page, CrawlSource source, int limit) throws IOException {
+        if (streamingExtraction) {
+            return extractStreaming(page, source, limit);
+        }
+        return extract(page.parse(), source, limit);
+    }
+
+    /**
+     * Trích xuất tối đa limit bài hợp lệ từ DOM đã có
+     */
+    public List<News> extract(Document doc, CrawlSource source, int limit) {
+        CompiledRules rules = compile(source);
+        List<News> newsList = new ArrayList<>();
+
+        for (Element item : doc.select(rules.item)) {
+            if (newsList.size() >= limit) break;
+            addIfValid(item, rules, source, newsList);
+        }
+
+        return newsList;
+    }
+
+    /**
+     * Parse dạng stream: xử lý từng item ngay khi parse xong
+     * và dừng đọc khi đã đủ limit bài hợp lệ
+     */
+    private List<News> extractStreaming(FetchResult page, CrawlSource source, int limit) throws IOException {
+        CompiledRules rules = compile(source);
+        List<News> newsList = new ArrayList<>();
+
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(page.reader(), page.getBaseUri())) {
+            Iterator<Element> elements = parser.iterator();
+
+            while (newsList.size() < limit && elements.hasNext()) {
+                Element element = elements.next();
+                if (!element.is(rules.item)) continue;
+
+                addIfValid(element, rules, source, newsList);
+                // Item đã xử lý xong, bỏ khỏi DOM để giải phóng bộ nhớ
+                element.remove();
+            }
+
+            parser.stop();
+        }
+
+        return newsList;
+    }
+
+    /**
+     * Selector rules của source, điền mặc định cho các rule bị thiếu
+     */
+    public SelectorRules rulesFor(CrawlSource source) {
+        return new SelectorRules(
+                orDefault(source.getCssSelector(), DEFAULT_ITEM_SELECTOR),
+                orDefault(source.getTitleSelector(), DEFAULT_TITLE_SELECTOR),
+                source.getLinkSelector(),
+                orDefault(source.getDescriptionSelector(), DEFAULT_DESCRIPTION_SELECTOR),
+                orDefault(source.getImageSelector(), DEFAULT_IMAGE_SELECTOR),
+                orDefault(source.getDateSelector(), DEFAULT_DATE_SELECTOR)
+        );
+    }
+
+    private CompiledRules compile(CrawlSource source) {
+        SelectorRules rules = rulesFor(source);
+        return new CompiledRules(
+                evaluator(rules.getItem()),
+                evaluator(rules.getTitle()),
+                rules.getLink() != null ? evaluator(rules.getLink()) : null,
+                evaluator(rules.getDescription()),
+                evaluator(rules.getImage()),
+                evaluator(rules.getDate())
+        );
+    }
+
+    private Evaluator evaluator(String selector) {
+        return compiledSelectors.computeIfAbsent(selector, QueryParser::parse);
+    }
+
+    /**
+     * Trích xuất một bài từ item, bỏ qua nếu thiếu title hoặc URL không hợp lệ
+     */
+    private void addIfValid(Element item, CompiledRules rules, CrawlSource source, List<News> newsList) {
+        String sourceName = source.getName().toUpperCase();
+
+        try {
+            Element titleElement = item.selectFirst(rules.title);
+            if (titleElement == null || titleElement.text().isEmpty()) {
+                return;
+            }
+
+            String title = titleElement.text().trim();
+
+            // Link: theo linkSelector nếu có, không thì lấy từ title
+            Element linkElement = rules.link != null ? item.selectFirst(rules.link) : titleElement;
+            String newsUrl = linkElement != null ? linkElement.absUrl("href") : "";
+
+            // Skip nếu URL không hợp lệ
+            if (newsUrl.isEmpty() || !newsUrl.startsWith("http")) {
+                return;
+            }
+
+            Element descElement = item.selectFirst(rules.description);
+            String description = descElement != null ? descElement.text().trim() : "";
+
+            Element imgElement = item.selectFirst(rules.image);
+            String imageUrl = null;
+            if (imgElement != null) {
+                imageUrl = imgElement.absUrl("src");
+                if (imageUrl.isEmpty()) {
+                    imageUrl = imgElement.absUrl("data-src");
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            Element dateElement = item.selectFirst(rules.date);
+            LocalDateTime publishedAt = dateElement != null ? parsePublishedAt(dateValue(dateElement)) : null;
+
+            News news = News.builder()
+                    .title(title)
+                    .url(newsUrl)
+                    .urlHash(UrlCanonicalizer.urlHash(newsUrl))
+                    .source(sourceName)
+                    .description(description)
+                    .imageUrl(imageUrl)
+                    .publishedAt(publishedAt != null ? publishedAt : now)
+                    .crawledAt(now)
+                    .build();
+
+            newsList.add(news);
+            log.debug("{}: Parsed - {}", sourceName, title);
+        } catch (Exception e) {
+            log.debug("Error parsing {} article: {}", sourceName, e.getMessage());
+        }
+    }
+
+    private static String dateValue(Element dateElement) {
+        if (dateElement.hasAttr("datetime")) {
+            return dateElement.attr("datetime");
+        }
+        if (dateElement.hasAttr("title")) {
+            return dateElement.attr("title");
+        }
+        return dateElement.text();
+    }
+
+    /**
+     * Parse thời gian đăng bài: ISO-8601, RFC-1123 hoặc dạng "dd/MM/yyyy HH:mm"
+     * Trả về null nếu không parse được
+     */
+    public static LocalDateTime parsePublishedAt(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String text = value.trim();
+
+        // Có timezone (ISO-8601 / RFC-1123 của RSS): đổi về giờ hệ thống
+        try {
+            return OffsetDateTime.parse(text).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException ignored) {
+            // Thử các format khác
+        }
+        try {
+            return ZonedDateTime.parse(text, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        } catch (DateTimeParseException ignored) {
+            // Thử các format khác
+        }
+
+        for (DateTimeFormatter format : DATE_TIME_FORMATS) {
+            try {
+                return LocalDateTime.parse(text, format);
+            } catch (DateTimeParseException ignored) {
+                // Thử format tiếp theo
+            }
+        }
+
+        try {
+            return LocalDate.parse(text, DATE_FORMAT).atStartOfDay();
+        } catch (DateTimeParseException ignored) {
+            return null;
+        }
+    }
+
+    private static String orDefault(String value, String defaultValue) {
+        return value != null && !value.isBlank() ? value : defaultValue;
+    }
+
+    /**
+     * Selector rules dạng string của một source
+     */
+    @Data
+    @AllArgsConstructor
+    public static class SelectorRules {
+        private String item;
+        private String title;
+        private String link;
+        private String description;
+        private String image;
+        private String date;
+    }
+
+    @AllArgsConstructor
+    private static class CompiledRules {
+        private final Evaluator item;
+        private final Evaluator title;
+        private final Evaluator link;
+        private final Evaluator description;
+        private final Evaluator image;
+        private final Evaluator date;
+    }
+}
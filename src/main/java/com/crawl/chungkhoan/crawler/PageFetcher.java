@@ -0,0 +1,157 @@
+package com.crawl.chungkhoan.crawler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Fetch trang qua OkHttpClient dùng chung (connection pool, HTTP/2, gzip/brotli)
+ * Mọi request đều đi qua PolitenessManager (robots.txt + giới hạn tốc độ theo host)
+ * Trang listing dùng conditional GET: gửi If-None-Match / If-Modified-Since
+ * và so sánh digest body với lần trước
+ * Validators mới chỉ được lưu khi caller gọi commit() sau khi xử lý trang thành công,
+ * nếu không lần crawl lỗi sẽ khiến lần sau nhận 304 và bỏ qua trang chưa từng được lưu
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PageFetcher {
+
+    private final OkHttpClient httpClient;
+    private final FetchValidatorCache validatorCache;
+    private final PolitenessManager politenessManager;
+
+    @Value("${crawler.user-agent:Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36}")
+    private String userAgent;
+
+    /**
+     * Fetch URL, luôn trả về body
+     */
+    public FetchResult fetch(String url) throws IOException {
+        politenessManager.acquire(url);
+        return get(url);
+    }
+
+    /**
+     * Như fetch nhưng chờ lượt với ưu tiên thấp (trang chi tiết), không làm chậm request listing
+     */
+    public FetchResult fetchBackground(String url) throws IOException {
+        politenessManager.acquireBackground(url);
+        return get(url);
+    }
+
+    private FetchResult get(String url) throws IOException {
+        Request request = newRequest(url).build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            ensureSuccessful(response, url);
+            return readBody(response);
+        }
+    }
+
+    /**
+     * Fetch URL, chỉ trả về body khi nội dung thay đổi so với lần trước
+     * Kết quả FETCHED mang validators mới, cần commit() sau khi lưu xong
+     * @param source Tên source để thống kê skip rate
+     */
+    public FetchResult fetchIfChanged(String url, String source) throws IOException {
+        politenessManager.acquire(url);
+        FetchValidatorCache.Validators previous = validatorCache.get(url);
+
+        Request.Builder request = newRequest(url);
+        if (previous != null) {
+            if (previous.getEtag() != null) {
+                request.header("If-None-Match", previous.getEtag());
+            }
+            if (previous.getLastModified() != null) {
+                request.header("If-Modified-Since", previous.getLastModified());
+            }
+        }
+
+        try (Response response = httpClient.newCall(request.build()).execute()) {
+            String baseUri = response.request().url().toString();
+
+            if (response.code() == 304) {
+                log.debug("{}: {} not modified (304)", source, url);
+                validatorCache.record(source, FetchResult.Status.NOT_MODIFIED);
+                return FetchResult.notModified(baseUri);
+            }
+
+            ensureSuccessful(response, url);
+            FetchResult result = readBody(response);
+
+            String digest = digest(result.getBody());
+            FetchValidatorCache.Validators validators = new FetchValidatorCache.Validators(
+                    response.header("ETag"), response.header("Last-Modified"), digest);
+
+            if (previous != null && digest.equals(previous.getDigest())) {
+                // Cùng nội dung đã commit trước đó: cập nhật ETag / Last-Modified luôn
+                validatorCache.update(url, validators);
+                log.debug("{}: {} body unchanged", source, url);
+                validatorCache.record(source, FetchResult.Status.UNCHANGED);
+                return FetchResult.unchanged(baseUri);
+            }
+
+            validatorCache.record(source, FetchResult.Status.FETCHED);
+            return result.withValidators(url, validators);
+        }
+    }
+
+    /**
+     * Lưu validators của trang đã xử lý thành công để lần fetch sau gửi conditional GET
+     */
+    public void commit(FetchResult result) {
+        if (result != null && result.getValidators() != null) {
+            validatorCache.update(result.getUrl(), result.getValidators());
+        }
+    }
+
+    private Request.Builder newRequest(String url) {
+        return new Request.Builder()
+                .url(url)
+                .header("User-Agent", userAgent);
+    }
+
+    private static void ensureSuccessful(Response response, String url) throws IOException {
+        if (!response.isSuccessful()) {
+            throw new IOException("HTTP " + response.code() + " fetching " + url);
+        }
+    }
+
+    /**
+     * Đọc body và charset từ Content-Type (null thì để Jsoup tự detect từ thẻ meta)
+     */
+    private static FetchResult readBody(Response response) throws IOException {
+        ResponseBody responseBody = response.body();
+        byte[] body = responseBody != null ? responseBody.bytes() : new byte[0];
+
+        MediaType contentType = responseBody != null ? responseBody.contentType() : null;
+        Charset charset = contentType != null ? contentType.charset() : null;
+
+        return FetchResult.fetched(body, charset != null ? charset.name() : null,
+                response.request().url().toString());
+    }
+
+    /**
+     * SHA-256 của body
+     */
+    private static String digest(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.crawl.chungkhoan.crawler;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lớp lịch sự theo host cho mọi request crawl (Jsoup/OkHttp và Selenium)
+ * Mỗi host có một token bucket; Crawl-delay trong robots.txt hạ tốc độ xuống tương ứng
+ * Request listing đặt trước token theo thứ tự, fetch chi tiết chỉ dùng phần token còn dư
+ * Rule robots.txt được cache theo TTL; robots.txt lỗi server / không tới được thì chặn host và thử lại sớm
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PolitenessManager {
+
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final OkHttpClient httpClient;
+
+    @Value("${crawler.politeness.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crawler.politeness.requests-per-second:1.0}")
+    private double requestsPerSecond;
+
+    @Value("${crawler.politeness.burst:3}")
+    private int burst;
+
+    @Value("${crawler.politeness.respect-robots:true}")
+    private boolean respectRobots;
+
+    @Value("${crawler.politeness.robots-user-agent:*}")
+    private String robotsUserAgent;
+
+    @Value("${crawler.politeness.robots-ttl-minutes:60}")
+    private long robotsTtlMinutes;
+
+    @Value("${crawler.politeness.robots-retry-seconds:60}")
+    private long robotsRetrySeconds;
+
+    @Value("${crawler.user-agent:Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36}")
+    private String userAgent;
+
+    // Map: host -> trạng thái (token bucket + robots.txt)
+    private final Map<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Chờ đến lượt request tới host của URL
+     * @throws IOException nếu robots.txt không cho phép URL
+     */
+    public void acquire(String url) throws IOException {
+        acquire(url, false);
+    }
+
+    /**
+     * Chờ lượt với ưu tiên thấp (fetch trang chi tiết): không đặt trước token, chỉ lấy token khi bucket
+     * còn dư ngoài phần để dành cho listing (burst - 1 token)
+     * Hàng đợi detail dài đến đâu thì request listing tới cùng host cũng không phải xếp sau nó
+     * @throws IOException nếu robots.txt không cho phép URL
+     */
+    public void acquireBackground(String url) throws IOException {
+        acquire(url, true);
+    }
+
+    private void acquire(String url, boolean background) throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        URI uri = URI.create(url);
+        if (uri.getHost() == null) {
+            return;
+        }
+        HostState host = hosts.computeIfAbsent(uri.getScheme() + "://" + uri.getHost().toLowerCase(Locale.ROOT),
+                HostState::new);
+
+        RobotsRules robots = respectRobots ? host.robots() : RobotsRules.ALLOW_ALL;
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+        if (!robots.isAllowed(path)) {
+            throw new IOException("Disallowed by robots.txt: " + url);
+        }
+
+        double rate = effectiveRate(robots);
+        int capacity = effectiveBurst(robots);
+        if (!background) {
+            sleep(host.reserve(rate, capacity), url);
+            return;
+        }
+        long waitNanos;
+        while ((waitNanos = host.tryTake(rate, capacity, capacity - 1)) > 0) {
+            sleep(waitNanos, url);
+        }
+    }
+
+    private static void sleep(long waitNanos, String url) throws InterruptedIOException {
+        if (waitNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for " + url);
+        }
+    }
+
+    /**
+     * Trạng thái politeness theo host
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        hosts.forEach((origin, host) -> {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("requests", host.requests);
+            stats.put("totalWaitMs", TimeUnit.NANOSECONDS.toMillis(host.totalWaitNanos));
+            stats.put("backgroundRequests", host.backgroundRequests);
+            stats.put("backgroundWaitMs", TimeUnit.NANOSECONDS.toMillis(host.backgroundWaitNanos));
+            stats.put("crawlDelaySeconds", host.rules != null ? host.rules.getCrawlDelaySeconds() : null);
+            result.put(origin, stats);
+        });
+        return result;
+    }
+
+    /**
+     * Có Crawl-delay thì tốc độ là min(requests-per-second, 1 / Crawl-delay), không bao giờ nhanh hơn cấu hình
+     */
+    private double effectiveRate(RobotsRules robots) {
+        Double crawlDelay = robots.getCrawlDelaySeconds();
+        if (crawlDelay == null || crawlDelay <= 0) {
+            return requestsPerSecond;
+        }
+        return Math.min(requestsPerSecond, 1.0 / crawlDelay);
+    }
+
+    /**
+     * Có Crawl-delay thì không cho burst: các request cách nhau đúng khoảng delay
+     */
+    private int effectiveBurst(RobotsRules robots) {
+        return robots.getCrawlDelaySeconds() != null ? 1 : Math.max(1, burst);
+    }
+
+    /**
+     * Tải và parse robots.txt theo RFC 9309
+     * 4xx: không có robots.txt, cho phép tất cả; 5xx / 429 / lỗi mạng: chặn tất cả (DISALLOW_ALL)
+     * cho tới lần thử lại sau robots-retry-seconds
+     */
+    private RobotsRules loadRobots(String origin) {
+        Request request = new Request.Builder()
+                .url(origin + "/robots.txt")
+                .header("User-Agent", userAgent)
+                .build();
+
+        try (Response response = httpClient.newCall(request).execute()) {
+            int code = response.code();
+            if (code >= 500 || code == 429) {
+                log.warn("robots.txt for {} unavailable (HTTP {}), disallowing until retry", origin, code);
+                return RobotsRules.DISALLOW_ALL;
+            }
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                log.debug("No robots.txt for {} (HTTP {})", origin, code);
+                return RobotsRules.ALLOW_ALL;
+            }
+            RobotsRules rules = RobotsRules.parse(body.string(), robotsUserAgent);
+            log.info("Loaded robots.txt for {} (crawl-delay: {})", origin, rules.getCrawlDelaySeconds());
+            return rules;
+        } catch (Exception e) {
+            log.warn("Error fetching robots.txt for {}, disallowing until retry: {}", origin, e.getMessage());
+            return RobotsRules.DISALLOW_ALL;
+        }
+    }
+
+    private class HostState {
+        private final String origin;
+
+        private RobotsRules rules;
+        private long rulesLoadedAt;
+
+        // Token bucket
+        private double tokens = -1;
+        private long lastRefill;
+
+        private long requests;
+        private long totalWaitNanos;
+        private long backgroundRequests;
+        private long backgroundWaitNanos;
+
+        HostState(String origin) {
+            this.origin = origin;
+        }
+
+        synchronized RobotsRules robots() {
+            long now = System.currentTimeMillis();
+            // Chặn do không tải được robots.txt chỉ giữ tới lần thử lại
+            long ttlMillis = rules == RobotsRules.DISALLOW_ALL
+                    ? TimeUnit.SECONDS.toMillis(robotsRetrySeconds)
+                    : TimeUnit.MINUTES.toMillis(robotsTtlMinutes);
+            if (rules == null || now - rulesLoadedAt > ttlMillis) {
+                rules = loadRobots(origin);
+                rulesLoadedAt = now;
+            }
+            return rules;
+        }
+
+        /**
+         * Lấy một token, trả về thời gian phải chờ (nano giây)
+         * Token có thể âm: request được xếp lượt sau các request đang chờ
+         */
+        synchronized long reserve(double rate, int capacity) {
+            refill(rate, capacity);
+            tokens -= 1;
+            requests++;
+
+            if (tokens >= 0) {
+                return 0;
+            }
+            long wait = (long) (-tokens / rate * 1_000_000_000L);
+            totalWaitNanos += wait;
+            return wait;
+        }
+
+        /**
+         * Lấy một token nếu sau đó bucket vẫn còn ít nhất reserve token, không đặt trước
+         * @return 0 nếu lấy được, ngược lại thời gian nên chờ trước khi thử lại (nano giây)
+         */
+        synchronized long tryTake(double rate, int capacity, int reserve) {
+            refill(rate, capacity);
+            if (tokens >= reserve + 1) {
+                tokens -= 1;
+                requests++;
+                backgroundRequests++;
+                return 0;
+            }
+            long wait = Math.max((long) ((reserve + 1 - tokens) / rate * 1_000_000_000L), MIN_RETRY_NANOS);
+            backgroundWaitNanos += wait;
+            return wait;
+        }
+
+        private void refill(double rate, int capacity) {
+            long now = System.nanoTime();
+            if (tokens < 0 && lastRefill == 0) {
+                tokens = capacity;
+            } else {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * rate / 1_000_000_000.0);
+            }
+            lastRefill = now;
+        }
+    }
+}
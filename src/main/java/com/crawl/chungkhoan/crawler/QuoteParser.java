@@ -0,0 +1,286 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.StockQuote;
+
+import java.text.ParseException;
+
+/**
+ * Parse dòng cổ phiếu dạng text: "VNM Vinamilk 78,5 +1,2 +1,55% 1.234.567"
+ * Quét từng ký tự, không dùng regex / split / chuỗi trung gian
+ * Lỗi được báo bằng ParseException (kèm vị trí) thay vì trả về 0
+ *
+ * Quy ước dấu phải chọn rõ theo nguồn (NumberStyle), mặc định kiểu Việt Nam:
+ * "." phân cách hàng nghìn, "," thập phân ("12.500" = 12500, "78,5" = 78.5)
+ * Không đoán theo số lần xuất hiện: "12.500" và "12,500" mơ hồ nếu không biết quy ước
+ */
+public final class QuoteParser {
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private static final int MAX_DIGITS = 18;
+
+    private QuoteParser() {
+    }
+
+    /**
+     * Parse một dòng: mã, tên (tùy chọn), giá, thay đổi, % thay đổi, khối lượng
+     * Token kết thúc bằng "%" luôn là % thay đổi; các field sau giá là tùy chọn
+     */
+    public static StockQuote parseRow(String text) throws ParseException {
+        return parseRow(text, NumberStyle.VN);
+    }
+
+    /**
+     * Như parseRow(text) với quy ước dấu của nguồn
+     */
+    public static StockQuote parseRow(String text, NumberStyle style) throws ParseException {
+        if (text == null) {
+            throw new ParseException("Empty row", 0);
+        }
+        int len = text.length();
+        int pos = skipSpaces(text, 0);
+
+        // Mã: 3-4 chữ in hoa
+        int end = tokenEnd(text, pos);
+        if (!isSymbol(text, pos, end)) {
+            throw new ParseException("Invalid symbol", pos);
+        }
+        String symbol = text.substring(pos, end);
+        pos = skipSpaces(text, end);
+
+        // Tên: các token không phải số trước giá
+        int nameStart = -1;
+        int nameEnd = -1;
+        while (pos < len && !startsNumber(text, pos)) {
+            end = tokenEnd(text, pos);
+            if (nameStart < 0) {
+                nameStart = pos;
+            }
+            nameEnd = end;
+            pos = skipSpaces(text, end);
+        }
+        String name = nameStart >= 0 ? text.substring(nameStart, nameEnd) : symbol;
+
+        if (pos >= len) {
+            throw new ParseException("Missing price for " + symbol, pos);
+        }
+        end = tokenEnd(text, pos);
+        double price = parseDecimal(text, pos, end, style);
+        pos = skipSpaces(text, end);
+
+        double change = 0;
+        double changePercent = 0;
+        long volume = 0;
+        boolean hasChange = false;
+        boolean hasVolume = false;
+
+        while (pos < len) {
+            end = tokenEnd(text, pos);
+            if (startsNumber(text, pos)) {
+                if (text.charAt(end - 1) == '%') {
+                    changePercent = parseDecimal(text, pos, end, style);
+                } else if (!hasChange) {
+                    change = parseDecimal(text, pos, end, style);
+                    hasChange = true;
+                } else if (!hasVolume) {
+                    volume = parseGrouped(text, pos, end, style);
+                    hasVolume = true;
+                }
+            }
+            pos = skipSpaces(text, end);
+        }
+
+        return StockQuote.builder()
+                .symbol(symbol)
+                .name(name)
+                .price(price)
+                .change(change)
+                .changePercent(changePercent)
+                .volume(volume)
+                .build();
+    }
+
+    /**
+     * Parse số thập phân kiểu Việt Nam trong text[start, end), cho phép dấu +/- đầu và "%" cuối
+     */
+    public static double parseDecimal(CharSequence text, int start, int end) throws ParseException {
+        return parseDecimal(text, start, end, NumberStyle.VN);
+    }
+
+    /**
+     * Parse số thập phân trong text[start, end) theo quy ước style, cho phép dấu +/- đầu và "%" cuối
+     * Dấu phân cách hàng nghìn phải chia đúng nhóm 3 chữ số và đứng trước dấu thập phân
+     */
+    public static double parseDecimal(CharSequence text, int start, int end, NumberStyle style)
+            throws ParseException {
+        int pos = start;
+        boolean negative = false;
+
+        char first = text.charAt(pos);
+        if (first == '+' || first == '-' || first == '\u2212') {
+            negative = first != '+';
+            pos++;
+        }
+        if (end > pos && text.charAt(end - 1) == '%') {
+            end--;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        int group = -1; // số chữ số sau dấu phân cách hàng nghìn gần nhất, -1 khi chưa gặp
+        for (int i = pos; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    throw new ParseException("Too many digits", i);
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (fraction) {
+                    scale++;
+                } else if (group >= 0) {
+                    group++;
+                }
+            } else if (c == style.grouping) {
+                if (fraction) {
+                    throw new ParseException("Grouping separator after decimal separator", i);
+                }
+                group = checkGroup(digits, group, i);
+            } else if (c == style.decimal) {
+                if (fraction) {
+                    throw new ParseException("Multiple decimal separators", i);
+                }
+                if (digits == 0 || (group >= 0 && group != 3)) {
+                    throw new ParseException("Misplaced decimal separator", i);
+                }
+                fraction = true;
+            } else {
+                throw new ParseException("Unexpected character '" + c + "'", i);
+            }
+        }
+        if (digits == 0) {
+            throw new ParseException("No digits", start);
+        }
+        if (!fraction && group >= 0 && group != 3) {
+            throw new ParseException("Misplaced grouping separator", end);
+        }
+
+        double value = mantissa / POW10[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse số nguyên kiểu Việt Nam có phân cách hàng nghìn ("1.234.567")
+     */
+    public static long parseGrouped(CharSequence text, int start, int end) throws ParseException {
+        return parseGrouped(text, start, end, NumberStyle.VN);
+    }
+
+    /**
+     * Parse số nguyên có phân cách hàng nghìn theo quy ước style, không chấp nhận phần thập phân
+     */
+    public static long parseGrouped(CharSequence text, int start, int end, NumberStyle style)
+            throws ParseException {
+        long value = 0;
+        int digits = 0;
+        int group = -1;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_DIGITS) {
+                    throw new ParseException("Too many digits", i);
+                }
+                value = value * 10 + (c - '0');
+                if (group >= 0) {
+                    group++;
+                }
+            } else if (c == style.grouping) {
+                group = checkGroup(digits, group, i);
+            } else {
+                throw new ParseException("Unexpected character '" + c + "'", i);
+            }
+        }
+        if (digits == 0) {
+            throw new ParseException("No digits", start);
+        }
+        if (group >= 0 && group != 3) {
+            throw new ParseException("Misplaced grouping separator", end);
+        }
+        return value;
+    }
+
+    /**
+     * Kiểm tra nhóm trước dấu phân cách hàng nghìn tại vị trí at: nhóm đầu 1-3 chữ số, các nhóm sau đúng 3
+     * @return độ dài nhóm mới (0)
+     */
+    private static int checkGroup(int digits, int group, int at) throws ParseException {
+        if (group < 0 ? digits == 0 || digits > 3 : group != 3) {
+            throw new ParseException("Misplaced grouping separator", at);
+        }
+        return 0;
+    }
+
+    private static boolean isSymbol(CharSequence text, int start, int end) {
+        int length = end - start;
+        if (length < 3 || length > 4) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsNumber(CharSequence text, int pos) {
+        char c = text.charAt(pos);
+        if (c >= '0' && c <= '9') {
+            return true;
+        }
+        if ((c == '+' || c == '-' || c == '\u2212') && pos + 1 < text.length()) {
+            char next = text.charAt(pos + 1);
+            return next >= '0' && next <= '9';
+        }
+        return false;
+    }
+
+    private static int skipSpaces(CharSequence text, int pos) {
+        while (pos < text.length() && isSpace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int tokenEnd(CharSequence text, int pos) {
+        while (pos < text.length() && !isSpace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isSpace(char c) {
+        return c <= ' ' || c == '\u00A0';
+    }
+
+    /**
+     * Quy ước dấu phân cách của nguồn dữ liệu
+     */
+    public enum NumberStyle {
+        VN('.', ','), // 1.234.567,5
+        US(',', '.'); // 1,234,567.5
+
+        private final char grouping;
+        private final char decimal;
+
+        NumberStyle(char grouping, char decimal) {
+            this.grouping = grouping;
+            this.decimal = decimal;
+        }
+    }
+}
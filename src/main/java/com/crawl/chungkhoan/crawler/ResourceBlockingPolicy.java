@@ -0,0 +1,88 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.CrawlSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Danh sách URL pattern bị chặn khi render bằng Chrome (Network.setBlockedURLs)
+ * CDP chỉ chặn theo URL nên mỗi resource type được đổi thành các pattern đuôi file
+ */
+@Component
+public class ResourceBlockingPolicy {
+
+    private static final Map<String, List<String>> TYPE_PATTERNS = Map.of(
+            "image", List.of("*.jpg*", "*.jpeg*", "*.png*", "*.gif*", "*.webp*", "*.svg*", "*.ico*", "*.avif*"),
+            "font", List.of("*.woff*", "*.woff2*", "*.ttf*", "*.otf*", "*.eot*"),
+            "media", List.of("*.mp4*", "*.webm*", "*.m3u8*", "*.mp3*", "*.m4a*"),
+            "stylesheet", List.of("*.css*")
+    );
+
+    @Value("${crawler.selenium.blocking.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crawler.selenium.blocking.resource-types:image,font,media}")
+    private String resourceTypes;
+
+    @Value("${crawler.selenium.blocking.deny-patterns:}")
+    private String denyPatterns;
+
+    @Value("${crawler.selenium.blocking.allow:}")
+    private String allow;
+
+    /**
+     * Pattern bị chặn cho source (null thì chỉ dùng cấu hình chung)
+     * Override của source: blockedResourceTypes thay cho resource-types,
+     * blockedUrlPatterns cộng thêm vào deny list, allowedResources được loại ra
+     */
+    public List<String> patternsFor(CrawlSource source) {
+        if (!enabled) {
+            return List.of();
+        }
+
+        String types = source != null && source.getBlockedResourceTypes() != null
+                ? source.getBlockedResourceTypes() : resourceTypes;
+
+        Set<String> patterns = new LinkedHashSet<>();
+        for (String type : split(types)) {
+            patterns.addAll(TYPE_PATTERNS.getOrDefault(type.toLowerCase(Locale.ROOT), List.of()));
+        }
+        patterns.addAll(split(denyPatterns));
+        if (source != null) {
+            patterns.addAll(split(source.getBlockedUrlPatterns()));
+        }
+
+        List<String> allowed = new ArrayList<>(split(allow));
+        if (source != null) {
+            allowed.addAll(split(source.getAllowedResources()));
+        }
+        for (String entry : allowed) {
+            List<String> typePatterns = TYPE_PATTERNS.get(entry.toLowerCase(Locale.ROOT));
+            if (typePatterns != null) {
+                typePatterns.forEach(patterns::remove);
+            } else {
+                patterns.remove(entry);
+            }
+        }
+
+        return new ArrayList<>(patterns);
+    }
+
+    private static List<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+}
@@ -0,0 +1,161 @@
+package com.crawl.chungkhoan.crawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rule robots.txt đã parse cho một user-agent
+ * Hỗ trợ Allow / Disallow với wildcard "*" và "$", rule dài nhất thắng, Allow thắng khi bằng nhau
+ */
+public class RobotsRules {
+
+    public static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), null);
+    public static final RobotsRules DISALLOW_ALL = new RobotsRules(List.of(new Rule("/", false)), null);
+
+    private final List<Rule> rules;
+    private final Double crawlDelaySeconds;
+
+    private RobotsRules(List<Rule> rules, Double crawlDelaySeconds) {
+        this.rules = rules;
+        this.crawlDelaySeconds = crawlDelaySeconds;
+    }
+
+    /**
+     * Parse robots.txt, lấy group của userAgent, không có thì dùng group "*"
+     */
+    public static RobotsRules parse(String content, String userAgent) {
+        String agent = userAgent.toLowerCase(Locale.ROOT);
+
+        List<Rule> specificRules = new ArrayList<>();
+        List<Rule> wildcardRules = new ArrayList<>();
+        Double specificDelay = null;
+        Double wildcardDelay = null;
+        boolean specificFound = false;
+
+        // Các user-agent của group hiện tại
+        boolean groupMatchesAgent = false;
+        boolean groupIsWildcard = false;
+        boolean readingAgents = false;
+
+        for (String rawLine : content.split("\r?\n")) {
+            String line = rawLine;
+            int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            int colon = line.indexOf(':');
+            if (colon < 0) continue;
+
+            String key = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+
+            if ("user-agent".equals(key)) {
+                if (!readingAgents) {
+                    groupMatchesAgent = false;
+                    groupIsWildcard = false;
+                    readingAgents = true;
+                }
+                String groupAgent = value.toLowerCase(Locale.ROOT);
+                if ("*".equals(groupAgent)) {
+                    groupIsWildcard = true;
+                } else if (!"*".equals(agent) && agent.contains(groupAgent)) {
+                    groupMatchesAgent = true;
+                    specificFound = true;
+                }
+                continue;
+            }
+            readingAgents = false;
+
+            List<Rule> target = groupMatchesAgent ? specificRules : groupIsWildcard ? wildcardRules : null;
+            if (target == null) continue;
+
+            switch (key) {
+                case "allow" -> {
+                    if (!value.isEmpty()) target.add(new Rule(value, true));
+                }
+                case "disallow" -> {
+                    // "Disallow:" rỗng nghĩa là cho phép tất cả
+                    if (!value.isEmpty()) target.add(new Rule(value, false));
+                }
+                case "crawl-delay" -> {
+                    try {
+                        double delay = Double.parseDouble(value);
+                        if (groupMatchesAgent) {
+                            specificDelay = delay;
+                        } else {
+                            wildcardDelay = delay;
+                        }
+                    } catch (NumberFormatException ignored) {
+                        // Bỏ qua giá trị không hợp lệ
+                    }
+                }
+                default -> {
+                    // Bỏ qua sitemap và các directive khác
+                }
+            }
+        }
+
+        return specificFound
+                ? new RobotsRules(specificRules, specificDelay)
+                : new RobotsRules(wildcardRules, wildcardDelay);
+    }
+
+    /**
+     * Path (kèm query) có được phép crawl không
+     */
+    public boolean isAllowed(String path) {
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (!rule.matches(path)) continue;
+            if (best == null
+                    || rule.pattern.length() > best.pattern.length()
+                    || (rule.pattern.length() == best.pattern.length() && rule.allow)) {
+                best = rule;
+            }
+        }
+        return best == null || best.allow;
+    }
+
+    public Double getCrawlDelaySeconds() {
+        return crawlDelaySeconds;
+    }
+
+    private static class Rule {
+        private final String pattern;
+        private final boolean allow;
+
+        Rule(String pattern, boolean allow) {
+            this.pattern = pattern;
+            this.allow = allow;
+        }
+
+        /**
+         * Match prefix, "*" khớp chuỗi bất kỳ, "$" ở cuối neo vào cuối path
+         */
+        boolean matches(String path) {
+            boolean anchored = pattern.endsWith("$");
+            String glob = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+            return matchGlob(glob, 0, path, 0, anchored);
+        }
+
+        private static boolean matchGlob(String glob, int g, String path, int p, boolean anchored) {
+            while (g < glob.length()) {
+                char c = glob.charAt(g);
+                if (c == '*') {
+                    // Gộp các "*" liên tiếp
+                    while (g < glob.length() && glob.charAt(g) == '*') g++;
+                    if (g == glob.length()) return true;
+                    for (int i = p; i <= path.length(); i++) {
+                        if (matchGlob(glob, g, path, i, anchored)) return true;
+                    }
+                    return false;
+                }
+                if (p >= path.length() || path.charAt(p) != c) return false;
+                g++;
+                p++;
+            }
+            return !anchored || p == path.length();
+        }
+    }
+}
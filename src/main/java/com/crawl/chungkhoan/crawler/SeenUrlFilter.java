@@ -0,0 +1,56 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.News;
+import com.crawl.chungkhoan.repository.NewsRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tập URL bài viết đã thấy: Bloom filter phía trước, index chính xác trong storage phía sau
+ * URL chưa từng thấy được trả lời ngay từ Bloom filter, không cần tra storage
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SeenUrlFilter {
+
+    private final NewsRepository newsRepository;
+
+    @Value("${crawler.frontier.expected-urls:500000}")
+    private long expectedUrls;
+
+    @Value("${crawler.frontier.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private BloomFilter bloomFilter;
+
+    @PostConstruct
+    void init() {
+        bloomFilter = new BloomFilter(expectedUrls, falsePositiveRate);
+        for (News news : newsRepository.findAll()) {
+            bloomFilter.put(UrlCanonicalizer.canonicalize(news.getUrl()));
+        }
+        log.info("SeenUrlFilter initialized with {} stored URLs ({} KB bloom filter)",
+                bloomFilter.approximateInsertions(), bloomFilter.sizeInBytes() / 1024);
+    }
+
+    /**
+     * URL đã có trong storage chưa
+     */
+    public boolean isKnown(String url) {
+        if (!bloomFilter.mightContain(UrlCanonicalizer.canonicalize(url))) {
+            return false;
+        }
+        return newsRepository.existsByUrl(url);
+    }
+
+    /**
+     * Ghi nhận URL vừa được lưu
+     */
+    public void markSeen(String url) {
+        bloomFilter.put(UrlCanonicalizer.canonicalize(url));
+    }
+}
@@ -0,0 +1,137 @@
+package com.crawl.chungkhoan.crawler;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Chuẩn hóa URL trước khi dedup
+ * Bỏ fragment, tham số tracking, port mặc định; hạ chữ thường scheme/host; sắp xếp query
+ */
+public final class UrlCanonicalizer {
+
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "fbclid", "gclid", "dclid", "msclkid", "yclid", "zarsrc", "gidzl",
+            "_ga", "_gl", "mc_cid", "mc_eid", "igshid", "ref_src", "spm"
+    );
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * URL dạng chuẩn, trả về URL gốc (bỏ fragment) nếu không parse được
+     */
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String trimmed = url.trim();
+
+        try {
+            URI uri = new URI(trimmed).normalize();
+            if (uri.getScheme() == null || uri.getRawAuthority() == null) {
+                return stripFragment(trimmed);
+            }
+
+            String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() != null ? uri.getHost().toLowerCase(Locale.ROOT) : null;
+            if (host == null) {
+                return stripFragment(trimmed);
+            }
+            if (host.endsWith(".")) {
+                host = host.substring(0, host.length() - 1);
+            }
+
+            int port = uri.getPort();
+            boolean defaultPort = port == -1
+                    || ("http".equals(scheme) && port == 80)
+                    || ("https".equals(scheme) && port == 443);
+
+            String path = uri.getRawPath();
+            if (path == null || path.isEmpty()) {
+                path = "/";
+            }
+
+            StringBuilder result = new StringBuilder(trimmed.length());
+            result.append(scheme).append("://").append(host);
+            if (!defaultPort) {
+                result.append(':').append(port);
+            }
+            result.append(path);
+
+            String query = canonicalQuery(uri.getRawQuery());
+            if (!query.isEmpty()) {
+                result.append('?').append(query);
+            }
+            return result.toString();
+        } catch (URISyntaxException e) {
+            return stripFragment(trimmed);
+        }
+    }
+
+    /**
+     * Hash 128-bit (32 ký tự hex, 16 byte đầu của SHA-256) của URL đã chuẩn hóa, dùng làm khóa dedup
+     * Các biến thể của cùng một URL (tracking param, fragment, ...) cho cùng một hash
+     */
+    public static String urlHash(String url) {
+        String canonical = canonicalize(url);
+        if (canonical == null) {
+            return null;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            // Mọi JVM đều phải có SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Host của URL (chữ thường, bỏ "www."), null nếu không parse được
+     */
+    public static String siteOf(String url) {
+        try {
+            String host = new URI(url.trim()).getHost();
+            if (host == null) {
+                return null;
+            }
+            host = host.toLowerCase(Locale.ROOT);
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (URISyntaxException | NullPointerException e) {
+            return null;
+        }
+    }
+
+    private static String canonicalQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return "";
+        }
+
+        List<String> params = new ArrayList<>();
+        for (String param : rawQuery.split("&")) {
+            if (param.isEmpty()) continue;
+
+            int eq = param.indexOf('=');
+            String name = (eq >= 0 ? param.substring(0, eq) : param).toLowerCase(Locale.ROOT);
+            if (name.startsWith("utm_") || TRACKING_PARAMS.contains(name)) continue;
+
+            params.add(param);
+        }
+
+        params.sort(null);
+        return String.join("&", params);
+    }
+
+    private static String stripFragment(String url) {
+        int hash = url.indexOf('#');
+        return hash >= 0 ? url.substring(0, hash) : url;
+    }
+}
@@ -0,0 +1,280 @@
+package com.crawl.chungkhoan.crawler;
+
+import io.github.bonigarcia.wdm.WebDriverManager;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.ChromiumDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool ChromeDriver dùng chung cho crawl Selenium và dữ liệu thị trường
+ * Driver được xóa cookie/storage và về about:blank sau mỗi lần dùng,
+ * bị thay mới sau N trang hoặc khi JS heap vượt ngưỡng
+ */
+@Component
+@Slf4j
+public class WebDriverPool {
+
+    @Value("${crawler.selenium.pool.max-size:2}")
+    private int maxSize;
+
+    @Value("${crawler.selenium.pool.min-idle:1}")
+    private int minIdle;
+
+    @Value("${crawler.selenium.pool.max-pages-per-driver:50}")
+    private int maxPagesPerDriver;
+
+    @Value("${crawler.selenium.pool.max-js-heap-mb:512}")
+    private long maxJsHeapMb;
+
+    @Value("${crawler.selenium.pool.borrow-timeout-seconds:60}")
+    private long borrowTimeoutSeconds;
+
+    @Value("${crawler.selenium.pool.warm-up:true}")
+    private boolean warmUp;
+
+    @Value("${crawler.selenium.implicit-wait-ms:0}")
+    private long implicitWaitMs;
+
+    @Value("${crawler.selenium.page-load-strategy:NORMAL}")
+    private PageLoadStrategy pageLoadStrategy;
+
+    @Value("${crawler.selenium.user-agent:Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36}")
+    private String userAgent;
+
+    private final BlockingDeque<PooledDriver> idle = new LinkedBlockingDeque<>();
+    private Semaphore permits;
+
+    private volatile boolean driverBinaryReady;
+    private volatile boolean closed;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder recycled = new LongAdder();
+    private final LongAdder borrowed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxSize);
+        if (!warmUp || minIdle <= 0) {
+            return;
+        }
+
+        // Khởi động Chrome mất vài giây, làm nền để không chặn startup
+        Thread warmer = new Thread(this::warmUp, "webdriver-warmup");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        PooledDriver pooled;
+        while ((pooled = idle.poll()) != null) {
+            quit(pooled);
+        }
+    }
+
+    /**
+     * Mượn một driver, chờ tối đa borrow-timeout nếu pool đang dùng hết
+     * Dùng với try-with-resources để driver luôn được trả lại
+     */
+    public PooledDriver borrow() throws InterruptedException, TimeoutException {
+        if (closed) {
+            throw new IllegalStateException("WebDriverPool is shut down");
+        }
+        if (!permits.tryAcquire(borrowTimeoutSeconds, TimeUnit.SECONDS)) {
+            throw new TimeoutException("No WebDriver available after " + borrowTimeoutSeconds + "s");
+        }
+
+        try {
+            PooledDriver pooled = idle.poll();
+            if (pooled == null) {
+                pooled = create();
+            }
+            borrowed.increment();
+            return pooled;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxSize", maxSize);
+        stats.put("idle", idle.size());
+        stats.put("inUse", maxSize - permits.availablePermits());
+        stats.put("created", created.sum());
+        stats.put("recycled", recycled.sum());
+        stats.put("borrowed", borrowed.sum());
+        return stats;
+    }
+
+    private void warmUp() {
+        try {
+            for (int i = idle.size(); i < Math.min(minIdle, maxSize); i++) {
+                idle.offer(create());
+            }
+            log.info("WebDriverPool warmed up with {} drivers", idle.size());
+        } catch (Exception e) {
+            log.warn("Error warming up WebDriverPool: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Nhận lại driver: xóa state rồi đưa về pool, hoặc quit nếu đã đến hạn thay mới
+     */
+    private void release(PooledDriver pooled) {
+        try {
+            pooled.pagesLoaded++;
+            if (closed || !pooled.valid || !reset(pooled)) {
+                quit(pooled);
+            } else {
+                idle.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Xóa cookie, localStorage/sessionStorage và về about:blank
+     * @return false nếu driver cần được thay mới
+     */
+    private boolean reset(PooledDriver pooled) {
+        if (pooled.pagesLoaded >= maxPagesPerDriver) {
+            log.debug("Recycling WebDriver after {} pages", pooled.pagesLoaded);
+            return false;
+        }
+
+        try {
+            WebDriver driver = pooled.driver;
+            JavascriptExecutor js = (JavascriptExecutor) driver;
+
+            Object heap = js.executeScript(
+                    "return window.performance && performance.memory ? performance.memory.usedJSHeapSize : 0;");
+            long heapMb = heap instanceof Number number ? number.longValue() / (1024 * 1024) : 0;
+            if (heapMb > maxJsHeapMb) {
+                log.debug("Recycling WebDriver with {} MB JS heap", heapMb);
+                return false;
+            }
+
+            pooled.blockUrls(List.of());
+            driver.manage().deleteAllCookies();
+            js.executeScript("try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}");
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            log.debug("Error resetting WebDriver, discarding it: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private PooledDriver create() {
+        ensureDriverBinary();
+
+        ChromeOptions options = new ChromeOptions();
+        options.addArguments("--headless"); // Chạy không hiển thị browser
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-gpu");
+        options.addArguments("--window-size=1920,1080");
+        options.addArguments("--user-agent=" + userAgent);
+        // EAGER: driver.get() trả về ngay khi DOMContentLoaded, không chờ ảnh/iframe
+        options.setPageLoadStrategy(pageLoadStrategy);
+
+        WebDriver driver = new ChromeDriver(options);
+        // Không dùng implicit wait: findElements trả về ngay khi thiếu element,
+        // việc chờ do điều kiện sẵn sàng tường minh của từng trang đảm nhận
+        driver.manage().timeouts().implicitlyWait(Duration.ofMillis(implicitWaitMs));
+        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
+
+        created.increment();
+        log.info("Started new ChromeDriver ({} created in total)", created.sum());
+        return new PooledDriver(driver);
+    }
+
+    /**
+     * WebDriverManager chỉ cần setup một lần cho cả pool
+     */
+    private synchronized void ensureDriverBinary() {
+        if (!driverBinaryReady) {
+            WebDriverManager.chromedriver().setup();
+            driverBinaryReady = true;
+        }
+    }
+
+    private void quit(PooledDriver pooled) {
+        recycled.increment();
+        try {
+            pooled.driver.quit();
+        } catch (Exception e) {
+            log.warn("Error closing driver: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Driver đang được mượn, close() để trả lại pool
+     */
+    public class PooledDriver implements AutoCloseable {
+        private final WebDriver driver;
+        private int pagesLoaded;
+        private boolean valid = true;
+        private boolean networkEnabled;
+        private List<String> blockedUrls = List.of();
+
+        private PooledDriver(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        public WebDriver getDriver() {
+            return driver;
+        }
+
+        /**
+         * Chặn request tới các URL pattern qua DevTools (Network.setBlockedURLs)
+         * Áp dụng cho các lần driver.get() tiếp theo, danh sách rỗng để bỏ chặn
+         */
+        public void blockUrls(List<String> patterns) {
+            if (patterns.equals(blockedUrls) || !(driver instanceof ChromiumDriver chromium)) {
+                return;
+            }
+            if (!networkEnabled) {
+                chromium.executeCdpCommand("Network.enable", Map.of());
+                networkEnabled = true;
+            }
+            chromium.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", patterns));
+            blockedUrls = List.copyOf(patterns);
+        }
+
+        /**
+         * Đánh dấu driver hỏng, sẽ bị quit thay vì trả về pool
+         */
+        public void invalidate() {
+            valid = false;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.crawl.chungkhoan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Kết quả một phần của /api/market/all kèm trạng thái
+ * TIMEOUT / ERROR vẫn trả dữ liệu cũ nhất còn có (nếu có)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarketPart {
+
+    private Status status;
+    private List<?> data;
+    private LocalDateTime asOf;
+    private String error;
+
+    public enum Status {
+        OK, TIMEOUT, ERROR
+    }
+}
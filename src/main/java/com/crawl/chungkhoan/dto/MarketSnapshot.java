@@ -0,0 +1,24 @@
+package com.crawl.chungkhoan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ảnh chụp một loại dữ liệu thị trường (stocks / bonds / funds) đang cache trong bộ nhớ
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarketSnapshot {
+
+    private String type;
+    private List<?> data;
+    private LocalDateTime asOf;
+    private String etag;
+}
@@ -15,5 +15,9 @@ public class PageResponse<T> {
     private int size;
     private long totalElements;
     private int totalPages;
+    /**
+     * Cursor của tin cuối trang, truyền lại qua tham số cursor để lấy trang sau; null nếu đã hết
+     */
+    private String nextCursor;
 }
 
@@ -0,0 +1,24 @@
+package com.crawl.chungkhoan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Quote mới nhất của một mã kèm thay đổi so với giá mở cửa trong ngày
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TickSummary {
+
+    private String symbol;
+    private long time; // epoch millis
+    private double price;
+    private long volume;
+    private double openPrice;
+    private double changeSinceOpen;
+    private double changePercentSinceOpen;
+}
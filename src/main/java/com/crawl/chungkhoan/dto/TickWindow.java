@@ -0,0 +1,22 @@
+package com.crawl.chungkhoan.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Chuỗi tick của một mã trong một khoảng thời gian, dạng mảng song song
+ * times[i] (epoch millis), prices[i], volumes[i]
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TickWindow {
+
+    private String symbol;
+    private long[] times;
+    private double[] prices;
+    private long[] volumes;
+}
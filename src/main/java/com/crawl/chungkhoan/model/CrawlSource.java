@@ -17,7 +17,25 @@ public class CrawlSource {
     private String name;
     private String url;
     private SourceType type;
-    private String cssSelector;
+
+    // Selector rules cho extractor (null thì dùng mặc định)
+    private String cssSelector; // item selector
+    private String titleSelector;
+    private String linkSelector;
+    private String descriptionSelector;
+    private String imageSelector;
+    private String dateSelector;
+    private String followSelector; // link category / phân trang cho deep crawl
+    private String contentSelector; // nội dung chính ở trang chi tiết
+
+    // Điều kiện sẵn sàng khi render bằng Selenium (null thì chờ item selector có ít nhất 1 phần tử)
+    private String readySelector;
+    private Integer readyMinItems;
+
+    // Chặn tài nguyên khi render bằng Selenium (null thì dùng cấu hình chung)
+    private String blockedResourceTypes; // vd: "image,font,media"
+    private String blockedUrlPatterns; // thêm vào deny list, vd: "*ads.example.com*"
+    private String allowedResources; // loại type / pattern khỏi danh sách chặn, vd: "image"
 
     @Builder.Default
     private Integer crawlInterval = 300; // seconds
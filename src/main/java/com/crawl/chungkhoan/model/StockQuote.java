@@ -0,0 +1,20 @@
+package com.crawl.chungkhoan.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockQuote {
+
+    private String symbol;
+    private String name;
+    private double price;
+    private double change;
+    private double changePercent;
+    private long volume;
+}
@@ -2,14 +2,14 @@ package com.crawl.chungkhoan.repository;
 
 import com.crawl.chungkhoan.model.News;
 import com.crawl.chungkhoan.storage.InMemoryStorage;
+import com.crawl.chungkhoan.storage.NewsCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
@@ -21,6 +21,22 @@ public class NewsRepository {
         return storage.saveNews(news);
     }
 
+    /**
+     * Lưu tin nếu nó vẫn còn (chưa bị xóa)
+     * @return false nếu tin đã bị xóa
+     */
+    public boolean updateIfPresent(News news) {
+        return storage.updateNewsIfPresent(news);
+    }
+
+    /**
+     * Lưu tin nếu URL chưa có, atomic giữa các luồng crawl
+     * @return true nếu tin được lưu
+     */
+    public boolean saveIfAbsent(News news) {
+        return storage.saveNewsIfAbsent(news);
+    }
+
     public Optional<News> findById(Long id) {
         return storage.findNewsById(id);
     }
@@ -33,22 +49,63 @@ public class NewsRepository {
         return storage.findAllNews();
     }
 
+    /**
+     * Một trang tin, mới nhất trước
+     */
+    public List<News> findPage(int page, int size) {
+        return storage.findNewsPage(page * size, size);
+    }
+
+    /**
+     * Trang tin ngay sau cursor, mới nhất trước (null: trang đầu)
+     */
+    public List<News> findPageAfter(NewsCursor after, int size) {
+        return storage.findNewsPageAfter(after, size);
+    }
+
+    public long count() {
+        return storage.countNews();
+    }
+
     public List<News> findBySource(String source) {
         return storage.findNewsBySource(source);
     }
 
+    /**
+     * Một trang tin của một nguồn, mới nhất trước
+     */
+    public List<News> findPageBySource(String source, int page, int size) {
+        return storage.findNewsBySource(source, page * size, size);
+    }
+
+    /**
+     * Trang tin của một nguồn ngay sau cursor, mới nhất trước (null: trang đầu)
+     */
+    public List<News> findPageBySourceAfter(String source, NewsCursor after, int size) {
+        return storage.findNewsBySourceAfter(source, after, size);
+    }
+
+    public long countBySource(String source) {
+        return storage.countNewsBySource(source);
+    }
+
+    public Map<String, Integer> countBySources() {
+        return storage.countNewsBySources();
+    }
+
     public List<News> findRecentNews(LocalDateTime since) {
-        return storage.findAllNews().stream()
-                .filter(n -> n.getPublishedAt().isAfter(since))
-                .sorted(Comparator.comparing(News::getPublishedAt).reversed())
-                .collect(Collectors.toList());
+        return storage.findNewsSince(since);
     }
 
     public List<News> searchByKeyword(String keyword) {
-        return storage.findAllNews().stream()
-                .filter(n -> n.getTitle().toLowerCase().contains(keyword.toLowerCase()))
-                .sorted(Comparator.comparing(News::getPublishedAt).reversed())
-                .collect(Collectors.toList());
+        return storage.searchNews(keyword, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Một trang kết quả tìm kiếm full-text, mới nhất trước
+     */
+    public List<News> search(String query, int page, int size) {
+        return storage.searchNews(query, page * size, size);
     }
 
     public void deleteById(Long id) {
@@ -56,8 +113,7 @@ public class NewsRepository {
     }
 
     public boolean existsByUrl(String url) {
-        return storage.findAllNews().stream()
-                .anyMatch(n -> n.getUrl().equals(url));
+        return storage.findNewsByUrl(url).isPresent();
     }
 }
 
@@ -0,0 +1,284 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.crawler.NewsExtractor;
+import com.crawl.chungkhoan.crawler.PageFetcher;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import com.crawl.chungkhoan.repository.CrawlSourceRepository;
+import com.crawl.chungkhoan.repository.NewsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Stage thứ hai của pipeline crawl: fetch trang chi tiết của tin mới lưu
+ * để điền News.content và thời gian đăng thực
+ * Listing và detail nối nhau bằng hàng đợi có giới hạn; hàng đợi đầy thì listing
+ * không bị chặn, tin bị bỏ qua sẽ được backfill ở lượt sau
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ArticleDetailService {
+
+    public static final String DEFAULT_CONTENT_SELECTOR =
+            "[itemprop=articleBody], .detail-content, .content-detail, #mainContent, .fck_detail, "
+                    + ".article-content, .post-content, article";
+
+    private static final String PUBLISHED_SELECTOR =
+            "meta[property=article:published_time], meta[itemprop=datePublished], time[datetime], .pdate, .date";
+
+    private static final String NOISE_SELECTOR = "script, style, iframe, noscript, .ads, .banner, .related, .box-related";
+
+    private final NewsRepository newsRepository;
+    private final CrawlSourceRepository crawlSourceRepository;
+    private final PageFetcher pageFetcher;
+
+    @Value("${crawler.detail.enabled:true}")
+    private boolean enabled;
+
+    @Value("${crawler.detail.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${crawler.detail.workers:2}")
+    private int workerCount;
+
+    @Value("${crawler.detail.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${crawler.detail.backfill-hours:24}")
+    private int backfillHours;
+
+    private BlockingQueue<Long> queue;
+    private ExecutorService workers;
+
+    // Tin đang nằm trong hàng đợi hoặc đang xử lý
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    // Map: newsId -> số lần fetch lỗi
+    private final Map<Long, Integer> failedAttempts = new ConcurrentHashMap<>();
+
+    // Map: tên source (chữ hoa) -> content selector; dựng lại sau mỗi lượt backfill
+    private volatile Map<String, String> contentSelectors;
+
+    private final LongAdder processed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (!enabled) {
+            log.info("Article detail pipeline disabled");
+            return;
+        }
+
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "detail-worker-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.submit(this::runWorker);
+        }
+        log.info("Article detail pipeline started (queue: {}, workers: {})", queueCapacity, workerCount);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Đưa tin mới lưu vào hàng đợi detail, không bao giờ chặn luồng gọi
+     * @return false nếu hàng đợi đầy hoặc pipeline tắt
+     */
+    public boolean enqueue(News news) {
+        if (!enabled || news.getId() == null || news.getContent() != null) {
+            return false;
+        }
+        if (!pending.add(news.getId())) {
+            return true;
+        }
+        if (!queue.offer(news.getId())) {
+            pending.remove(news.getId());
+            dropped.increment();
+            log.debug("Detail queue full, deferring news {}", news.getId());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Backfill các tin gần đây chưa có content (bị bỏ qua khi hàng đợi đầy)
+     */
+    @Scheduled(fixedDelayString = "${crawler.detail.backfill-ms:60000}", initialDelayString = "${crawler.detail.backfill-ms:60000}")
+    public void backfill() {
+        // Nạp lại selector để nhận thay đổi cấu hình source
+        contentSelectors = null;
+        if (!enabled || queue.remainingCapacity() == 0) {
+            return;
+        }
+
+        int enqueued = 0;
+        for (News news : newsRepository.findRecentNews(LocalDateTime.now().minusHours(backfillHours))) {
+            if (queue.remainingCapacity() == 0) break;
+            if (news.getContent() == null && enqueue(news)) {
+                enqueued++;
+            }
+        }
+
+        if (enqueued > 0) {
+            log.info("Backfilled {} news into detail queue", enqueued);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("workers", workerCount);
+        stats.put("processed", processed.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("failed", failed.sum());
+        return stats;
+    }
+
+    private void runWorker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Long newsId;
+            try {
+                newsId = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            try {
+                newsRepository.findById(newsId).ifPresent(this::fetchDetail);
+            } finally {
+                pending.remove(newsId);
+            }
+        }
+    }
+
+    /**
+     * Fetch trang chi tiết, lấy nội dung chính và thời gian đăng
+     * Instance trong storage có thể đang được đọc / index ở luồng khác nên không sửa trực tiếp,
+     * lưu bản sao đã cập nhật, và chỉ khi tin chưa bị xóa trong lúc fetch
+     */
+    void fetchDetail(News news) {
+        if (news.getContent() != null) {
+            return;
+        }
+
+        try {
+            // Ưu tiên thấp: không chiếm lượt của các request listing tới cùng host
+            Document doc = pageFetcher.fetchBackground(news.getUrl()).parse();
+
+            String content = extractContent(doc, contentSelectorFor(news.getSource()));
+            LocalDateTime publishedAt = extractPublishedAt(doc);
+
+            News updated = copyOf(news);
+            updated.setContent(content);
+            if (publishedAt != null) {
+                updated.setPublishedAt(publishedAt);
+            }
+            if (!newsRepository.updateIfPresent(updated)) {
+                log.debug("News {} was deleted while fetching its detail", news.getId());
+                return;
+            }
+
+            failedAttempts.remove(news.getId());
+            processed.increment();
+            log.debug("Fetched detail for news {} ({} chars)", news.getId(), content.length());
+        } catch (Exception e) {
+            failed.increment();
+            int attempts = failedAttempts.merge(news.getId(), 1, Integer::sum);
+            log.debug("Error fetching detail for {} (attempt {}): {}", news.getUrl(), attempts, e.getMessage());
+
+            if (attempts >= maxAttempts) {
+                // Không thử lại nữa, để content rỗng
+                failedAttempts.remove(news.getId());
+                News updated = copyOf(news);
+                updated.setContent("");
+                newsRepository.updateIfPresent(updated);
+            }
+        }
+    }
+
+    private String contentSelectorFor(String sourceName) {
+        Map<String, String> selectors = contentSelectors;
+        if (selectors == null) {
+            selectors = new HashMap<>();
+            for (CrawlSource source : crawlSourceRepository.findAll()) {
+                if (source.getContentSelector() != null && !source.getContentSelector().isBlank()) {
+                    selectors.putIfAbsent(source.getName().toUpperCase(Locale.ROOT), source.getContentSelector());
+                }
+            }
+            contentSelectors = selectors;
+        }
+        return sourceName != null
+                ? selectors.getOrDefault(sourceName.toUpperCase(Locale.ROOT), DEFAULT_CONTENT_SELECTOR)
+                : DEFAULT_CONTENT_SELECTOR;
+    }
+
+    private static News copyOf(News news) {
+        return news.toBuilder()
+                .tags(news.getTags() != null ? new HashSet<>(news.getTags()) : new HashSet<>())
+                .build();
+    }
+
+    private static String extractContent(Document doc, String contentSelector) {
+        Element body = doc.selectFirst(contentSelector);
+        if (body == null) {
+            body = doc.body();
+        }
+        body.select(NOISE_SELECTOR).remove();
+
+        Elements paragraphs = body.select("p");
+        if (paragraphs.isEmpty()) {
+            return body.text().trim();
+        }
+        return paragraphs.stream()
+                .map(Element::text)
+                .map(String::trim)
+                .filter(text -> !text.isEmpty())
+                .collect(Collectors.joining("\n"));
+    }
+
+    private static LocalDateTime extractPublishedAt(Document doc) {
+        for (Element element : doc.select(PUBLISHED_SELECTOR)) {
+            String value = element.hasAttr("content") ? element.attr("content")
+                    : element.hasAttr("datetime") ? element.attr("datetime")
+                    : element.text();
+            LocalDateTime publishedAt = NewsExtractor.parsePublishedAt(value);
+            if (publishedAt != null) {
+                return publishedAt;
+            }
+        }
+        return null;
+    }
+}
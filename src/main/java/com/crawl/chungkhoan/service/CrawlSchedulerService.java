@@ -0,0 +1,194 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.crawler.CrawlExecutor;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.repository.CrawlSourceRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lập lịch crawl từng source theo crawlInterval
+ * Source nằm trong hàng đợi sắp theo thời điểm đến hạn; interval tự co giãn
+ * theo việc source có ra tin mới hay không, kèm jitter để các source không crawl cùng lúc
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CrawlSchedulerService {
+
+    private final CrawlSourceRepository crawlSourceRepository;
+    private final HybridCrawlService hybridCrawlService;
+    private final CrawlExecutor crawlExecutor;
+
+    @Value("${crawler.enabled:true}")
+    private boolean crawlerEnabled;
+
+    @Value("${crawler.scheduler.enabled:true}")
+    private boolean schedulerEnabled;
+
+    @Value("${crawler.scheduler.min-interval-seconds:60}")
+    private long minIntervalSeconds;
+
+    @Value("${crawler.scheduler.max-interval-seconds:3600}")
+    private long maxIntervalSeconds;
+
+    @Value("${crawler.scheduler.speedup-factor:0.5}")
+    private double speedupFactor;
+
+    @Value("${crawler.scheduler.backoff-factor:1.5}")
+    private double backoffFactor;
+
+    @Value("${crawler.scheduler.jitter:0.1}")
+    private double jitter;
+
+    // Hàng đợi sắp theo thời điểm đến hạn
+    private final PriorityBlockingQueue<ScheduledSource> queue =
+            new PriorityBlockingQueue<>(16, Comparator.comparingLong(ScheduledSource::getDueAt));
+
+    // Map: sourceId -> trạng thái lịch crawl
+    private final Map<Long, ScheduledSource> scheduled = new ConcurrentHashMap<>();
+
+    /**
+     * Đưa source mới vào hàng đợi và dispatch các source đã đến hạn
+     */
+    @Scheduled(fixedDelayString = "${crawler.scheduler.tick-ms:1000}",
+            initialDelayString = "${crawler.scheduler.initial-delay-ms:10000}")
+    public void tick() {
+        if (!crawlerEnabled || !schedulerEnabled) {
+            return;
+        }
+
+        registerNewSources();
+
+        long now = System.currentTimeMillis();
+        ScheduledSource head;
+        while ((head = queue.peek()) != null && head.getDueAt() <= now) {
+            queue.poll();
+            dispatch(head);
+        }
+    }
+
+    /**
+     * Lịch crawl hiện tại của các source
+     */
+    public List<Map<String, Object>> getSchedule() {
+        List<ScheduledSource> entries = new ArrayList<>(scheduled.values());
+        entries.sort(Comparator.comparingLong(ScheduledSource::getDueAt));
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (ScheduledSource entry : entries) {
+            Map<String, Object> item = new HashMap<>();
+            item.put("sourceId", entry.getSourceId());
+            item.put("source", entry.getName());
+            item.put("intervalSeconds", entry.getIntervalSeconds());
+            item.put("nextCrawlAt", toLocalDateTime(entry.getDueAt()));
+            item.put("running", entry.running);
+            result.add(item);
+        }
+        return result;
+    }
+
+    private void registerNewSources() {
+        long now = System.currentTimeMillis();
+
+        for (CrawlSource source : crawlSourceRepository.findByEnabled(true)) {
+            if (scheduled.containsKey(source.getId())) continue;
+
+            long interval = clamp(source.getCrawlInterval() != null ? source.getCrawlInterval() : minIntervalSeconds);
+            ScheduledSource entry = new ScheduledSource(source.getId(), source.getName(), interval);
+
+            // Đã crawl trước đó thì đến hạn sau lastCrawledAt + interval, chưa thì rải đều trong lần đầu
+            if (source.getLastCrawledAt() != null) {
+                long lastCrawled = source.getLastCrawledAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                entry.dueAt = Math.max(now, lastCrawled + interval * 1000);
+            } else {
+                entry.dueAt = now + (long) (ThreadLocalRandom.current().nextDouble() * jitter * interval * 1000);
+            }
+
+            if (scheduled.putIfAbsent(source.getId(), entry) == null) {
+                queue.offer(entry);
+                log.info("Scheduled source {} every {}s, first crawl at {}",
+                        source.getName(), interval, toLocalDateTime(entry.dueAt));
+            }
+        }
+    }
+
+    private void dispatch(ScheduledSource entry) {
+        Optional<CrawlSource> found = crawlSourceRepository.findById(entry.getSourceId());
+        if (found.isEmpty() || !found.get().isEnabled()) {
+            scheduled.remove(entry.getSourceId());
+            log.info("Source {} removed or disabled, unscheduled", entry.getName());
+            return;
+        }
+
+        CrawlSource source = found.get();
+        entry.running = true;
+
+        try {
+            crawlExecutor.submit(source, () -> {
+                int saved = 0;
+                try {
+                    saved = hybridCrawlService.crawlSource(source);
+                } finally {
+                    reschedule(entry, saved);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Crawl executor rejected source {}, retrying later", entry.getName());
+            reschedule(entry, 0);
+        }
+    }
+
+    /**
+     * Co interval khi source ra tin mới, giãn interval khi không có gì mới
+     */
+    private void reschedule(ScheduledSource entry, int savedCount) {
+        long previous = entry.intervalSeconds;
+        double factor = savedCount > 0 ? speedupFactor : backoffFactor;
+        entry.intervalSeconds = clamp(Math.round(previous * factor));
+
+        double jitterRatio = 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        entry.dueAt = System.currentTimeMillis() + (long) (entry.intervalSeconds * 1000 * jitterRatio);
+        entry.running = false;
+        queue.offer(entry);
+
+        log.debug("Source {}: {} new items, interval {}s -> {}s",
+                entry.getName(), savedCount, previous, entry.intervalSeconds);
+    }
+
+    private long clamp(long intervalSeconds) {
+        return Math.max(minIntervalSeconds, Math.min(maxIntervalSeconds, intervalSeconds));
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    @Getter
+    private static class ScheduledSource {
+        private final Long sourceId;
+        private final String name;
+        private volatile long intervalSeconds;
+        private volatile long dueAt;
+        private volatile boolean running;
+
+        ScheduledSource(Long sourceId, String name, long intervalSeconds) {
+            this.sourceId = sourceId;
+            this.name = name;
+            this.intervalSeconds = intervalSeconds;
+        }
+    }
+}
@@ -1,19 +1,27 @@
 package com.crawl.chungkhoan.service;
 
+import com.crawl.chungkhoan.crawler.CrawlExecutor;
+import com.crawl.chungkhoan.crawler.CrawlFrontier;
+import com.crawl.chungkhoan.crawler.CrawlResult;
+import com.crawl.chungkhoan.crawler.FeedReader;
+import com.crawl.chungkhoan.crawler.FetchResult;
+import com.crawl.chungkhoan.crawler.NewsExtractor;
+import com.crawl.chungkhoan.crawler.PageFetcher;
+import com.crawl.chungkhoan.crawler.SeenUrlFilter;
 import com.crawl.chungkhoan.model.CrawlSource;
 import com.crawl.chungkhoan.model.News;
 import com.crawl.chungkhoan.repository.CrawlSourceRepository;
 import com.crawl.chungkhoan.repository.NewsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -23,274 +31,164 @@ public class CrawlService {
 
     private final NewsRepository newsRepository;
     private final CrawlSourceRepository crawlSourceRepository;
+    private final CrawlExecutor crawlExecutor;
+    private final PageFetcher pageFetcher;
+    private final NewsExtractor newsExtractor;
+    private final FeedReader feedReader;
+    private final SeenUrlFilter seenUrlFilter;
+    private final ArticleDetailService articleDetailService;
+
+    @Value("${crawler.items-per-source:15}")
+    private int itemsPerSource;
+
+    @Value("${crawler.deep.enabled:false}")
+    private boolean deepCrawlEnabled;
+
+    @Value("${crawler.deep.max-depth:2}")
+    private int deepMaxDepth;
+
+    @Value("${crawler.deep.max-pages:50}")
+    private int deepMaxPages;
 
     /**
-     * Crawl tất cả sources đang enabled
+     * Crawl tất cả sources đang enabled (song song, có deadline)
      */
     public void crawlAllSources() {
         List<CrawlSource> sources = crawlSourceRepository.findByEnabled(true);
         log.info("Starting crawl for {} enabled sources", sources.size());
-        
-        for (CrawlSource source : sources) {
-            try {
-                crawlSource(source);
-            } catch (Exception e) {
-                log.error("Error crawling source {}: {}", source.getName(), e.getMessage());
-            }
-        }
-        
+
+        crawlExecutor.runAll(sources, this::crawlSource);
+
         log.info("Crawl completed for all sources");
     }
 
     /**
      * Crawl một source cụ thể
+     * @return số tin mới được lưu
      */
-    public void crawlSource(CrawlSource source) {
-        log.info("Crawling source: {} - {}", source.getName(), source.getUrl());
-        
-        try {
-            List<News> newsList = new ArrayList<>();
-            
-            // Crawl theo loại source
-            switch (source.getName().toUpperCase()) {
-                case "CAFEF":
-                    newsList = crawlCafeF();
-                    break;
-                case "VIETSTOCK":
-                    newsList = crawlVietStock();
-                    break;
-                case "SSI":
-                    newsList = crawlSSI();
-                    break;
-                default:
-                    log.warn("Unknown source: {}", source.getName());
-            }
-            
-            // Lưu vào database
-            for (News news : newsList) {
-                // Check duplicate by URL
-                if (!newsRepository.existsByUrl(news.getUrl())) {
-                    newsRepository.save(news);
-                    log.debug("Saved news: {}", news.getTitle());
-                }
-            }
-            
-            log.info("Crawled {} news items from {}", newsList.size(), source.getName());
-            
-        } catch (Exception e) {
-            log.error("Error crawling {}: {}", source.getName(), e.getMessage(), e);
-        }
+    public int crawlSource(CrawlSource source) {
+        return crawlSource(source, itemsPerSource);
     }
 
     /**
-     * Crawl CafeF - Tin tức chứng khoán
+     * Crawl một source cụ thể với số lượng items tùy chỉnh
+     * @return số tin mới được lưu
      */
-    private List<News> crawlCafeF() {
-        List<News> newsList = new ArrayList<>();
-
-        try {
-            // URL mới của CafeF
-            String url = "https://cafef.vn/chung-khoan.chn";
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(15000)
-                    .followRedirects(true)
-                    .get();
-
-            // Thử nhiều selector khác nhau
-            Elements articles = doc.select("article, .item-news, .box-category-item, .list-news-subfolder li");
-
-            log.info("CafeF: Found {} articles", articles.size());
-
-            for (Element article : articles.stream().limit(15).toList()) {
-                try {
-                    // Thử nhiều selector cho title
-                    Element titleElement = article.selectFirst("h3 a, h2 a, h4 a, .title a, a[title]");
+    public int crawlSource(CrawlSource source, int itemsPerSource) {
+        CrawlResult result = crawlStatic(source, itemsPerSource);
+        commit(result);
+        return result.getSaved();
+    }
 
-                    if (titleElement != null && !titleElement.text().isEmpty()) {
-                        String title = titleElement.text().trim();
-                        String newsUrl = titleElement.absUrl("href");
+    /**
+     * Crawl một source từ HTML tĩnh / feed, không render
+     * Source RSS đọc feed bằng StAX, source NEWS trích xuất từ HTML
+     * Source có followSelector được deep crawl nếu bật crawler.deep.enabled
+     * Validators của trang chưa được lưu: caller gọi commit() khi chấp nhận kết quả
+     * @return số bài trích xuất được và số tin mới lưu, CrawlResult.FAILED nếu không fetch được trang
+     */
+    public CrawlResult crawlStatic(CrawlSource source, int itemsPerSource) {
+        log.info("Crawling source: {} - {}", source.getName(), source.getUrl());
+        CrawlResult result = CrawlResult.EMPTY;
 
-                        // Skip nếu URL không hợp lệ
-                        if (newsUrl.isEmpty() || !newsUrl.startsWith("http")) {
-                            continue;
-                        }
+        try {
+            if (deepCrawlEnabled && source.getType() != CrawlSource.SourceType.RSS
+                    && source.getFollowSelector() != null && !source.getFollowSelector().isBlank()) {
+                result = deepCrawl(source, itemsPerSource);
+                return result;
+            }
 
-                        // Description
-                        Element descElement = article.selectFirst(".sapo, .description, p");
-                        String description = descElement != null ? descElement.text().trim() : "";
+            FetchResult page = pageFetcher.fetchIfChanged(source.getUrl(), source.getName().toUpperCase());
+            if (!page.isChanged()) {
+                log.info("{}: Page not changed ({}), skipping parse", source.getName(), page.getStatus());
+                result = CrawlResult.UNCHANGED;
+                return result;
+            }
 
-                        // Image
-                        Element imgElement = article.selectFirst("img");
-                        String imageUrl = null;
-                        if (imgElement != null) {
-                            imageUrl = imgElement.absUrl("src");
-                            if (imageUrl.isEmpty()) {
-                                imageUrl = imgElement.absUrl("data-src");
-                            }
-                        }
+            List<News> newsList = source.getType() == CrawlSource.SourceType.RSS
+                    ? feedReader.read(page, source, itemsPerSource, seenUrlFilter::isKnown)
+                    : newsExtractor.extract(page, source, itemsPerSource);
 
-                        News news = News.builder()
-                                .title(title)
-                                .url(newsUrl)
-                                .urlHash(String.valueOf(newsUrl.hashCode()))
-                                .source("CAFEF")
-                                .description(description)
-                                .imageUrl(imageUrl)
-                                .publishedAt(LocalDateTime.now())
-                                .crawledAt(LocalDateTime.now())
-                                .build();
+            int savedCount = saveNew(newsList);
+            result = new CrawlResult(newsList.size(), savedCount, true, page);
 
-                        newsList.add(news);
-                        log.debug("CafeF: Parsed - {}", title);
-                    }
-                } catch (Exception e) {
-                    log.debug("Error parsing CafeF article: {}", e.getMessage());
-                }
-            }
+            log.info("Crawled {} news items from {} ({} new items saved)",
+                    newsList.size(), source.getName(), savedCount);
 
         } catch (Exception e) {
-            log.error("Error crawling CafeF: {}", e.getMessage());
+            log.error("Error crawling {}: {}", source.getName(), e.getMessage(), e);
+            result = CrawlResult.FAILED;
+        } finally {
+            source.setLastCrawledAt(LocalDateTime.now());
+            crawlSourceRepository.save(source);
         }
 
-        return newsList;
+        return result;
     }
 
     /**
-     * Crawl VietStock - Tin tức thị trường
+     * Ghi nhận validators của trang listing sau khi kết quả crawl được chấp nhận
      */
-    private List<News> crawlVietStock() {
-        List<News> newsList = new ArrayList<>();
-
-        try {
-            String url = "https://vietstock.vn/";
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(15000)
-                    .followRedirects(true)
-                    .get();
-
-            Elements articles = doc.select(".news-item, article, .box-news li, .list-news li");
-
-            log.info("VietStock: Found {} articles", articles.size());
-
-            for (Element article : articles.stream().limit(15).toList()) {
-                try {
-                    Element titleElement = article.selectFirst("h3 a, h2 a, .title a, a[title]");
-
-                    if (titleElement != null && !titleElement.text().isEmpty()) {
-                        String title = titleElement.text().trim();
-                        String newsUrl = titleElement.absUrl("href");
-
-                        if (newsUrl.isEmpty() || !newsUrl.startsWith("http")) {
-                            continue;
-                        }
-
-                        Element descElement = article.selectFirst(".description, .sapo, p");
-                        String description = descElement != null ? descElement.text().trim() : "";
+    public void commit(CrawlResult result) {
+        pageFetcher.commit(result.getPage());
+    }
 
-                        Element imgElement = article.selectFirst("img");
-                        String imageUrl = null;
-                        if (imgElement != null) {
-                            imageUrl = imgElement.absUrl("src");
-                            if (imageUrl.isEmpty()) {
-                                imageUrl = imgElement.absUrl("data-src");
-                            }
-                        }
+    /**
+     * Deep crawl: đi theo link category / phân trang trong domain của source
+     * URL bài viết đã biết bị loại bởi SeenUrlFilter trước khi lưu
+     * @return số bài trích xuất được và số tin mới lưu
+     */
+    private CrawlResult deepCrawl(CrawlSource source, int itemsPerSource) {
+        CrawlFrontier frontier = new CrawlFrontier(source.getUrl(), deepMaxDepth, deepMaxPages);
+        Evaluator followEval = QueryParser.parse(source.getFollowSelector());
+        int pages = 0;
+        int extracted = 0;
+        int savedCount = 0;
+
+        CrawlFrontier.Entry entry;
+        while ((entry = frontier.next()) != null) {
+            try {
+                Document doc = pageFetcher.fetch(entry.getUrl()).parse();
+                pages++;
 
-                        News news = News.builder()
-                                .title(title)
-                                .url(newsUrl)
-                                .urlHash(String.valueOf(newsUrl.hashCode()))
-                                .source("VIETSTOCK")
-                                .description(description)
-                                .imageUrl(imageUrl)
-                                .publishedAt(LocalDateTime.now())
-                                .crawledAt(LocalDateTime.now())
-                                .build();
+                List<News> newsList = newsExtractor.extract(doc, source, itemsPerSource);
+                extracted += newsList.size();
+                savedCount += saveNew(newsList);
 
-                        newsList.add(news);
-                        log.debug("VietStock: Parsed - {}", title);
+                if (entry.getDepth() < frontier.getMaxDepth()) {
+                    for (Element link : doc.select(followEval)) {
+                        frontier.offer(link.absUrl("href"), entry.getDepth() + 1);
                     }
-                } catch (Exception e) {
-                    log.debug("Error parsing VietStock article: {}", e.getMessage());
                 }
+            } catch (Exception e) {
+                log.warn("{}: Error deep crawling {}: {}", source.getName(), entry.getUrl(), e.getMessage());
             }
-
-        } catch (Exception e) {
-            log.error("Error crawling VietStock: {}", e.getMessage());
         }
 
-        return newsList;
+        log.info("Deep crawled {} pages from {} ({} new items saved)", pages, source.getName(), savedCount);
+        // Không tải được trang nào (kể cả trang gốc) là lỗi fetch, không phải trang ít bài
+        return pages > 0 ? new CrawlResult(extracted, savedCount, true) : CrawlResult.FAILED;
     }
 
     /**
-     * Crawl SSI - Tin tức đầu tư
+     * Lưu các tin chưa có trong storage và đưa vào hàng đợi fetch chi tiết
+     * @return số tin mới được lưu
      */
-    private List<News> crawlSSI() {
-        List<News> newsList = new ArrayList<>();
-
-        try {
-            // Thử URL mới của SSI
-            String url = "https://www.ssi.com.vn/";
-            Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(15000)
-                    .followRedirects(true)
-                    .get();
-
-            Elements articles = doc.select(".news-item, article, .box-news li, .list-news li");
-
-            log.info("SSI: Found {} articles", articles.size());
-
-            for (Element article : articles.stream().limit(15).toList()) {
-                try {
-                    Element titleElement = article.selectFirst("h3 a, h2 a, .title a, a[title]");
-
-                    if (titleElement != null && !titleElement.text().isEmpty()) {
-                        String title = titleElement.text().trim();
-                        String newsUrl = titleElement.absUrl("href");
-
-                        if (newsUrl.isEmpty() || !newsUrl.startsWith("http")) {
-                            continue;
-                        }
-
-                        Element descElement = article.selectFirst(".description, .summary, p");
-                        String description = descElement != null ? descElement.text().trim() : "";
-
-                        Element imgElement = article.selectFirst("img");
-                        String imageUrl = null;
-                        if (imgElement != null) {
-                            imageUrl = imgElement.absUrl("src");
-                            if (imageUrl.isEmpty()) {
-                                imageUrl = imgElement.absUrl("data-src");
-                            }
-                        }
-
-                        News news = News.builder()
-                                .title(title)
-                                .url(newsUrl)
-                                .urlHash(String.valueOf(newsUrl.hashCode()))
-                                .source("SSI")
-                                .description(description)
-                                .imageUrl(imageUrl)
-                                .publishedAt(LocalDateTime.now())
-                                .crawledAt(LocalDateTime.now())
-                                .build();
-
-                        newsList.add(news);
-                        log.debug("SSI: Parsed - {}", title);
-                    }
-                } catch (Exception e) {
-                    log.debug("Error parsing SSI article: {}", e.getMessage());
-                }
+    public int saveNew(List<News> newsList) {
+        int savedCount = 0;
+
+        for (News news : newsList) {
+            // Bloom filter loại nhanh URL đã thấy, saveIfAbsent quyết định cuối cùng (atomic)
+            if (!seenUrlFilter.isKnown(news.getUrl()) && newsRepository.saveIfAbsent(news)) {
+                seenUrlFilter.markSeen(news.getUrl());
+                savedCount++;
+                log.debug("Saved news: {}", news.getTitle());
+
+                // Đưa sang stage detail để lấy nội dung bài
+                articleDetailService.enqueue(news);
             }
-
-        } catch (Exception e) {
-            log.error("Error crawling SSI: {}", e.getMessage());
         }
 
-        return newsList;
+        return savedCount;
     }
 }
-
@@ -0,0 +1,153 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.crawler.CrawlExecutor;
+import com.crawl.chungkhoan.crawler.CrawlResult;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.repository.CrawlSourceRepository;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Crawl static-first: fetch HTML tĩnh trước, chỉ render bằng Selenium khi
+ * số bài trích xuất được dưới ngưỡng
+ * Chế độ của từng source được ghi nhớ, source cần browser được thử lại static định kỳ
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HybridCrawlService {
+
+    private final CrawlSourceRepository crawlSourceRepository;
+    private final CrawlExecutor crawlExecutor;
+    private final CrawlService crawlService;
+    private final SeleniumCrawlService seleniumCrawlService;
+
+    @Value("${crawler.items-per-source:15}")
+    private int itemsPerSource;
+
+    @Value("${crawler.hybrid.min-items:3}")
+    private int minItems;
+
+    @Value("${crawler.hybrid.recheck-minutes:360}")
+    private long recheckMinutes;
+
+    // Map: sourceId -> chế độ crawl đã chọn
+    private final Map<Long, ModeDecision> modes = new ConcurrentHashMap<>();
+
+    /**
+     * Crawl tất cả sources đang enabled (song song, có deadline)
+     */
+    public void crawlAllSources(int itemsPerSource) {
+        List<CrawlSource> sources = crawlSourceRepository.findByEnabled(true);
+        log.info("Starting hybrid crawl for {} enabled sources (items per source: {})",
+                sources.size(), itemsPerSource);
+
+        crawlExecutor.runAll(sources, source -> crawlSource(source, itemsPerSource));
+
+        log.info("Hybrid crawl completed for all sources");
+    }
+
+    public void crawlAllSources() {
+        crawlAllSources(itemsPerSource);
+    }
+
+    public int crawlSource(CrawlSource source) {
+        return crawlSource(source, itemsPerSource);
+    }
+
+    /**
+     * Crawl một source theo chế độ đã ghi nhớ
+     * @return số tin mới được lưu
+     */
+    public int crawlSource(CrawlSource source, int itemsPerSource) {
+        // Feed RSS luôn đọc trực tiếp
+        if (source.getType() == CrawlSource.SourceType.RSS) {
+            return crawlService.crawlSource(source, itemsPerSource);
+        }
+
+        ModeDecision decision = modes.get(source.getId());
+        if (decision != null && decision.mode == Mode.BROWSER && !isRecheckDue(decision)) {
+            return seleniumCrawlService.crawlSource(source, itemsPerSource);
+        }
+
+        CrawlResult result = crawlService.crawlStatic(source, itemsPerSource);
+
+        if (result.isFailed()) {
+            // Lỗi fetch (timeout, 5xx, robots...) không cho biết trang tĩnh có đủ bài không: giữ nguyên chế độ
+            if (decision != null && decision.mode == Mode.BROWSER) {
+                log.info("{}: static recheck failed, staying in browser mode", source.getName());
+                return seleniumCrawlService.crawlSource(source, itemsPerSource);
+            }
+            return 0;
+        }
+
+        if (!result.isChanged()) {
+            // Trang tĩnh không đổi: giữ nguyên chế độ, source cần browser vẫn render
+            if (decision != null && decision.mode == Mode.BROWSER) {
+                modes.put(source.getId(), new ModeDecision(Mode.BROWSER, LocalDateTime.now()));
+                return seleniumCrawlService.crawlSource(source, itemsPerSource);
+            }
+            return 0;
+        }
+
+        int threshold = Math.min(minItems, itemsPerSource);
+        if (result.getExtracted() >= threshold) {
+            if (decision != null && decision.mode == Mode.BROWSER) {
+                log.info("{}: static HTML now yields {} items, switching back to static mode",
+                        source.getName(), result.getExtracted());
+            }
+            modes.put(source.getId(), new ModeDecision(Mode.STATIC, LocalDateTime.now()));
+            crawlService.commit(result);
+            return result.getSaved();
+        }
+
+        // Không commit validators: lần sau vẫn fetch đầy đủ để thử lại trang tĩnh
+        log.info("{}: static HTML yielded {} items (< {}), escalating to Selenium",
+                source.getName(), result.getExtracted(), threshold);
+        modes.put(source.getId(), new ModeDecision(Mode.BROWSER, LocalDateTime.now()));
+        return result.getSaved() + seleniumCrawlService.crawlSource(source, itemsPerSource);
+    }
+
+    /**
+     * Chế độ crawl hiện tại của từng source
+     */
+    public List<Map<String, Object>> getModes() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (CrawlSource source : crawlSourceRepository.findAll()) {
+            ModeDecision decision = modes.get(source.getId());
+
+            Map<String, Object> item = new HashMap<>();
+            item.put("sourceId", source.getId());
+            item.put("name", source.getName());
+            item.put("mode", decision != null ? decision.mode : null);
+            item.put("decidedAt", decision != null ? decision.decidedAt : null);
+            result.add(item);
+        }
+        return result;
+    }
+
+    private boolean isRecheckDue(ModeDecision decision) {
+        return Duration.between(decision.decidedAt, LocalDateTime.now()).toMinutes() >= recheckMinutes;
+    }
+
+    public enum Mode {
+        STATIC, BROWSER
+    }
+
+    @AllArgsConstructor
+    private static class ModeDecision {
+        private final Mode mode;
+        private final LocalDateTime decidedAt;
+    }
+}
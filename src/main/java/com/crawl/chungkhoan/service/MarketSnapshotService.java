@@ -0,0 +1,308 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.dto.MarketPart;
+import com.crawl.chungkhoan.dto.MarketSnapshot;
+import com.crawl.chungkhoan.model.StockQuote;
+import com.crawl.chungkhoan.storage.TickStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cache dữ liệu thị trường trong bộ nhớ cho các endpoint /api/market
+ * Còn hạn TTL: trả ngay; quá TTL nhưng chưa quá max-stale: trả bản cũ và làm mới nền;
+ * chưa có hoặc quá cũ: chờ lần làm mới
+ * Mỗi loại dữ liệu chỉ có một lần làm mới đang chạy, mọi request dùng chung kết quả
+ * Mỗi TTL chỉ bắt đầu tối đa một lần làm mới, kể cả khi lần trước lỗi hoặc trả rỗng
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarketSnapshotService {
+
+    public static final String STOCKS = "stocks";
+    public static final String BONDS = "bonds";
+    public static final String FUNDS = "funds";
+
+    public static final List<String> TYPES = List.of(STOCKS, BONDS, FUNDS);
+
+    private final StockMarketService stockMarketService;
+    private final TickStore tickStore;
+
+    @Value("${market.cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${market.cache.max-stale-seconds:600}")
+    private long maxStaleSeconds;
+
+    @Value("${market.cache.load-timeout-seconds:45}")
+    private long loadTimeoutSeconds;
+
+    @Value("${market.all.part-timeout-ms:8000}")
+    private long partTimeoutMs;
+
+    // Map: type -> snapshot mới nhất
+    private final Map<String, MarketSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    // Map: type -> thời điểm của lần làm mới gần nhất (lúc bắt đầu, lần lỗi / rỗng thì lúc kết thúc)
+    private final Map<String, Long> lastRefreshAt = new ConcurrentHashMap<>();
+
+    // Map: type -> lỗi của lần làm mới gần nhất (xóa khi làm mới thành công)
+    private final Map<String, Throwable> lastErrors = new ConcurrentHashMap<>();
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    // Map: type -> lần làm mới đang chạy
+    private final Map<String, CompletableFuture<MarketSnapshot>> inFlight = new ConcurrentHashMap<>();
+
+    private Map<String, Supplier<List<?>>> loaders;
+    private ExecutorService refreshExecutor;
+
+    @PostConstruct
+    void init() {
+        loaders = Map.of(
+                STOCKS, stockMarketService::getStockData,
+                BONDS, stockMarketService::getBondData,
+                FUNDS, stockMarketService::getFundData
+        );
+
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        refreshExecutor = Executors.newFixedThreadPool(loaders.size(), runnable -> {
+            Thread thread = new Thread(runnable, "market-refresh-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Lấy snapshot của một loại dữ liệu theo chính sách TTL + stale-while-revalidate
+     */
+    public MarketSnapshot get(String type) throws InterruptedException, ExecutionException, TimeoutException {
+        return getAsync(type).get(loadTimeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Như get() nhưng trả future: hoàn thành ngay nếu có snapshot dùng được,
+     * ngược lại là future của lần làm mới dùng chung
+     */
+    public CompletableFuture<MarketSnapshot> getAsync(String type) {
+        MarketSnapshot current = snapshots.get(type);
+        long age = current != null ? ageSeconds(current) : Long.MAX_VALUE;
+
+        if (age < ttlSeconds) {
+            return CompletableFuture.completedFuture(current);
+        }
+        if (age < ttlSeconds + maxStaleSeconds) {
+            // Trả bản cũ ngay, làm mới nền (không thử lại quá một lần mỗi TTL nếu nguồn đang lỗi)
+            if (isRefreshDue(type)) {
+                refresh(type);
+            }
+            return CompletableFuture.completedFuture(current);
+        }
+
+        CompletableFuture<MarketSnapshot> running = inFlight.get(type);
+        if (running != null) {
+            return running;
+        }
+        if (!isRefreshDue(type)) {
+            // Lần làm mới vừa rồi lỗi / rỗng: trả bản quá cũ (hoặc lỗi đó) thay vì scrape lại ngay
+            if (current != null) {
+                return CompletableFuture.completedFuture(current);
+            }
+            Throwable error = lastErrors.get(type);
+            return CompletableFuture.failedFuture(error != null ? error
+                    : new IllegalStateException("No " + type + " data available, retrying after " + ttlSeconds + "s"));
+        }
+        return refresh(type);
+    }
+
+    /**
+     * Lấy đồng thời mọi loại dữ liệu, mỗi phần có deadline riêng part-timeout-ms
+     * tính từ lúc phần đó được yêu cầu, phần chậm không ăn vào thời gian của phần khác
+     * Phần chậm / lỗi trả TIMEOUT / ERROR (làm mới vẫn tiếp tục chạy nền)
+     */
+    public Map<String, MarketPart> getAll() {
+        Map<String, CompletableFuture<MarketPart>> futures = new LinkedHashMap<>();
+        for (String type : TYPES) {
+            // Future phụ thuộc riêng: hết hạn không làm hoàn thành future làm mới dùng chung
+            futures.put(type, getAsync(type)
+                    .thenApply(snapshot -> part(MarketPart.Status.OK, snapshot, null))
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        return part(MarketPart.Status.ERROR, snapshots.get(type), cause.getMessage());
+                    })
+                    .completeOnTimeout(null, partTimeoutMs, TimeUnit.MILLISECONDS));
+        }
+
+        Map<String, MarketPart> parts = new LinkedHashMap<>();
+        futures.forEach((type, future) -> {
+            MarketPart part = future.join();
+            if (part == null) {
+                log.warn("{} not ready within {} ms, returning partial result", type, partTimeoutMs);
+                part = part(MarketPart.Status.TIMEOUT, snapshots.get(type), "Timed out after " + partTimeoutMs + " ms");
+            }
+            parts.put(type, part);
+        });
+        return parts;
+    }
+
+    /**
+     * Như get() nhưng không bao giờ chờ: snapshot hết hạn thì bắt đầu làm mới nền
+     * và trả về bản hiện có (null nếu chưa có)
+     */
+    public MarketSnapshot getNow(String type) {
+        MarketSnapshot current = snapshots.get(type);
+        if ((current == null || ageSeconds(current) >= ttlSeconds) && isRefreshDue(type)) {
+            refresh(type);
+        }
+        return current;
+    }
+
+    /**
+     * Số giây snapshot còn được coi là mới (dùng cho Cache-Control max-age)
+     */
+    public long remainingFreshSeconds(MarketSnapshot snapshot) {
+        return Math.max(0, ttlSeconds - ageSeconds(snapshot));
+    }
+
+    public long getMaxStaleSeconds() {
+        return maxStaleSeconds;
+    }
+
+    /**
+     * Bắt đầu làm mới nếu chưa có lần nào đang chạy, trả về future dùng chung
+     */
+    public CompletableFuture<MarketSnapshot> refresh(String type) {
+        Supplier<List<?>> loader = loaders.get(type);
+        if (loader == null) {
+            throw new IllegalArgumentException("Unknown market data type: " + type);
+        }
+
+        CompletableFuture<MarketSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<MarketSnapshot> existing = inFlight.putIfAbsent(type, future);
+        if (existing != null) {
+            return existing;
+        }
+
+        lastRefreshAt.put(type, System.currentTimeMillis());
+        // Gỡ khỏi inFlight trước khi hoàn thành: caller vừa nhận kết quả gọi refresh() sẽ bắt đầu lần mới
+        refreshExecutor.execute(() -> {
+            try {
+                MarketSnapshot snapshot = load(type, loader);
+                inFlight.remove(type, future);
+                future.complete(snapshot);
+            } catch (Throwable t) {
+                log.warn("Error refreshing {} snapshot: {}", type, t.getMessage());
+                lastErrors.put(type, t);
+                lastRefreshAt.put(type, System.currentTimeMillis());
+                inFlight.remove(type, future);
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    private MarketSnapshot load(String type, Supplier<List<?>> loader) {
+        long startedAt = System.currentTimeMillis();
+        List<?> data = loader.get();
+        MarketSnapshot previous = snapshots.get(type);
+
+        // Nguồn lỗi trả rỗng: giữ dữ liệu cũ thay vì ghi đè
+        if (data.isEmpty() && previous != null && !previous.getData().isEmpty()) {
+            log.warn("{} refresh returned no data, keeping snapshot from {}", type, previous.getAsOf());
+            lastRefreshAt.put(type, System.currentTimeMillis());
+            return previous;
+        }
+
+        LocalDateTime asOf = LocalDateTime.now();
+        MarketSnapshot snapshot = MarketSnapshot.builder()
+                .type(type)
+                .data(List.copyOf(data))
+                .asOf(asOf)
+                .etag(etag(type, data, asOf))
+                .build();
+        snapshots.put(type, snapshot);
+        lastErrors.remove(type);
+
+        if (STOCKS.equals(type)) {
+            recordTicks(data);
+        }
+
+        log.info("Refreshed {} snapshot: {} items in {} ms", type, data.size(), System.currentTimeMillis() - startedAt);
+        return snapshot;
+    }
+
+    /**
+     * Đã qua một TTL kể từ lần làm mới gần nhất
+     */
+    private boolean isRefreshDue(String type) {
+        long sinceLastRefresh = System.currentTimeMillis() - lastRefreshAt.getOrDefault(type, 0L);
+        return sinceLastRefresh >= TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    /**
+     * ETag của representation: digest (128 bit đầu của SHA-256) của JSON dữ liệu và asOf,
+     * vì response mang cả hai nên asOf đổi thì ETag cũng phải đổi
+     */
+    String etag(String type, List<?> data, LocalDateTime asOf) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(objectMapper.writeValueAsBytes(data));
+            digest.update(String.valueOf(asOf).getBytes(StandardCharsets.UTF_8));
+            return "\"" + type + "-" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize market data", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static MarketPart part(MarketPart.Status status, MarketSnapshot snapshot, String error) {
+        return MarketPart.builder()
+                .status(status)
+                .data(snapshot != null ? snapshot.getData() : List.of())
+                .asOf(snapshot != null ? snapshot.getAsOf() : null)
+                .error(error)
+                .build();
+    }
+
+    /**
+     * Ghi mỗi quote cổ phiếu vào TickStore để phục vụ lịch sử trong ngày
+     */
+    private void recordTicks(List<?> quotes) {
+        long now = System.currentTimeMillis();
+        for (Object quote : quotes) {
+            if (quote instanceof StockQuote stock) {
+                tickStore.record(stock.getSymbol(), now, stock.getPrice(), stock.getVolume());
+            }
+        }
+    }
+
+    private static long ageSeconds(MarketSnapshot snapshot) {
+        return Duration.between(snapshot.getAsOf(), LocalDateTime.now()).getSeconds();
+    }
+}
@@ -0,0 +1,274 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.dto.MarketSnapshot;
+import com.crawl.chungkhoan.model.StockQuote;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Đẩy thay đổi giá cổ phiếu tới các client qua Server-Sent Events
+ * Một poller nền đọc snapshot cổ phiếu và chỉ phát các mã có thay đổi
+ * Mỗi subscriber có buffer giới hạn, client chậm làm đầy buffer sẽ bị ngắt
+ * Một lần send bị treo quá send-timeout-ms thì client bị ngắt; pool gửi co giãn
+ * nên luồng đang kẹt ở client treo không chiếm chỗ của các client khác
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MarketStreamService {
+
+    private final MarketSnapshotService marketSnapshotService;
+
+    @Value("${market.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${market.stream.timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${market.stream.senders:4}")
+    private int senderCount;
+
+    @Value("${market.stream.max-senders:256}")
+    private int maxSenderCount;
+
+    @Value("${market.stream.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Map: symbol -> quote đã phát gần nhất
+    private final Map<String, StockQuote> lastQuotes = new ConcurrentHashMap<>();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private ExecutorService senders;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadCounter = new AtomicInteger(1);
+        senders = new ThreadPoolExecutor(senderCount, Math.max(senderCount, maxSenderCount),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + threadCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Đăng ký client mới, gửi ngay toàn bộ quote hiện có rồi chỉ gửi thay đổi
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = newEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, new ArrayBlockingQueue<>(bufferSize));
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+
+        if (!lastQuotes.isEmpty()) {
+            enqueue(subscriber, new StreamEvent("snapshot", new ArrayList<>(lastQuotes.values())));
+        }
+
+        log.debug("SSE subscriber added ({} active)", subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Đọc snapshot cổ phiếu và phát các quote thay đổi; không có client thì không làm gì
+     */
+    @Scheduled(fixedDelayString = "${market.stream.poll-ms:5000}", initialDelayString = "${market.stream.poll-ms:5000}")
+    public void poll() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        // Không chờ scrape trên luồng scheduler, snapshot mới sẽ được phát ở lượt sau
+        MarketSnapshot snapshot = marketSnapshotService.getNow(MarketSnapshotService.STOCKS);
+        List<StockQuote> changed = new ArrayList<>();
+        if (snapshot != null) {
+            for (Object item : snapshot.getData()) {
+                if (item instanceof StockQuote quote
+                        && !Objects.equals(lastQuotes.put(quote.getSymbol(), quote), quote)) {
+                    changed.add(quote);
+                }
+            }
+        }
+
+        // Không có thay đổi vẫn gửi heartbeat để giữ kết nối và phát hiện client đã đóng
+        StreamEvent event = changed.isEmpty() ? StreamEvent.HEARTBEAT : new StreamEvent("quotes", changed);
+
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, event);
+        }
+
+        if (!changed.isEmpty()) {
+            log.debug("Pushed {} changed quotes to {} subscribers", changed.size(), subscribers.size());
+        }
+    }
+
+    /**
+     * Ngắt các client có lần send đang treo quá send-timeout-ms
+     * Luồng gửi bị interrupt; nếu container không nhả write thì luồng đó kẹt đến write timeout
+     * của container, các client khác vẫn được gửi bằng luồng mới của pool
+     */
+    @Scheduled(fixedDelayString = "${market.stream.watchdog-ms:1000}")
+    public void evictStalled() {
+        long now = System.nanoTime();
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+
+        for (Subscriber subscriber : subscribers) {
+            long startedAt = subscriber.sendStartedAt;
+            if (startedAt == 0 || now - startedAt < timeoutNanos || !subscribers.remove(subscriber)) {
+                continue;
+            }
+            subscriber.evicted = true;
+            subscriber.buffer.clear();
+            dropped.increment();
+            log.info("SSE send blocked for more than {} ms, disconnecting subscriber", sendTimeoutMs);
+
+            synchronized (subscriber) {
+                if (subscriber.sender != null) {
+                    subscriber.sender.interrupt();
+                }
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("subscribers", subscribers.size());
+        stats.put("bufferSize", bufferSize);
+        stats.put("trackedSymbols", lastQuotes.size());
+        stats.put("droppedSubscribers", dropped.sum());
+        stats.put("senderThreads", ((ThreadPoolExecutor) senders).getPoolSize());
+        return stats;
+    }
+
+    /**
+     * Đưa event vào buffer của subscriber; buffer đầy thì ngắt subscriber
+     */
+    private void enqueue(Subscriber subscriber, StreamEvent event) {
+        if (!subscriber.buffer.offer(event)) {
+            subscribers.remove(subscriber);
+            dropped.increment();
+            log.info("SSE subscriber too slow (buffer {} full), disconnecting", bufferSize);
+            subscriber.emitter.complete();
+            return;
+        }
+
+        // Chỉ một luồng gửi cho mỗi subscriber tại một thời điểm
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    SseEmitter newEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    private void drain(Subscriber subscriber) {
+        synchronized (subscriber) {
+            subscriber.sender = Thread.currentThread();
+        }
+        try {
+            StreamEvent event;
+            while (!subscriber.evicted && (event = subscriber.buffer.poll()) != null) {
+                SseEmitter.SseEventBuilder builder = event.name != null
+                        ? SseEmitter.event().name(event.name).data(event.data, MediaType.APPLICATION_JSON)
+                        : SseEmitter.event().comment("heartbeat");
+                subscriber.sendStartedAt = System.nanoTime();
+                subscriber.emitter.send(builder);
+                subscriber.sendStartedAt = 0;
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.buffer.clear();
+            log.debug("SSE subscriber disconnected: {}", e.getMessage());
+        } finally {
+            subscriber.sendStartedAt = 0;
+            // Xóa cờ interrupt của watchdog trước khi trả luồng về pool
+            synchronized (subscriber) {
+                subscriber.sender = null;
+                Thread.interrupted();
+            }
+            subscriber.draining.set(false);
+        }
+
+        if (subscriber.evicted) {
+            subscriber.emitter.complete();
+            return;
+        }
+
+        // Event đến trong lúc đang kết thúc drain
+        if (!subscriber.buffer.isEmpty() && subscribers.contains(subscriber)
+                && subscriber.draining.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        // Thời điểm bắt đầu lần send đang chạy (System.nanoTime), 0 khi không gửi
+        private volatile long sendStartedAt;
+        private volatile boolean evicted;
+        private Thread sender; // guarded by this
+
+        Subscriber(SseEmitter emitter, BlockingQueue<StreamEvent> buffer) {
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Event chờ gửi, dùng chung cho mọi subscriber (SseEventBuilder không dùng lại được)
+     * name = null là heartbeat
+     */
+    private static class StreamEvent {
+        private static final StreamEvent HEARTBEAT = new StreamEvent(null, null);
+
+        private final String name;
+        private final Object data;
+
+        StreamEvent(String name, Object data) {
+            this.name = name;
+            this.data = data;
+        }
+    }
+}
@@ -1,19 +1,24 @@
 package com.crawl.chungkhoan.service;
 
+import com.crawl.chungkhoan.crawler.CrawlExecutor;
+import com.crawl.chungkhoan.crawler.NewsExtractor;
+import com.crawl.chungkhoan.crawler.PolitenessManager;
+import com.crawl.chungkhoan.crawler.ResourceBlockingPolicy;
+import com.crawl.chungkhoan.crawler.UrlCanonicalizer;
+import com.crawl.chungkhoan.crawler.WebDriverPool;
 import com.crawl.chungkhoan.model.CrawlSource;
 import com.crawl.chungkhoan.model.News;
 import com.crawl.chungkhoan.repository.CrawlSourceRepository;
-import com.crawl.chungkhoan.repository.NewsRepository;
-import io.github.bonigarcia.wdm.WebDriverManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
@@ -26,11 +31,22 @@ import java.util.List;
 @Slf4j
 public class SeleniumCrawlService {
 
-    private final NewsRepository newsRepository;
     private final CrawlSourceRepository crawlSourceRepository;
+    private final CrawlExecutor crawlExecutor;
+    private final NewsExtractor newsExtractor;
+    private final CrawlService crawlService;
+    private final PolitenessManager politenessManager;
+    private final WebDriverPool webDriverPool;
+    private final ResourceBlockingPolicy resourceBlockingPolicy;
+
+    @Value("${crawler.selenium.extraction:PAGE_SOURCE}")
+    private ExtractionMode extractionMode;
+
+    @Value("${crawler.selenium.ready-timeout-ms:10000}")
+    private long readyTimeoutMs;
 
     /**
-     * Crawl tất cả sources đang enabled với số lượng items tùy chỉnh
+     * Crawl tất cả sources đang enabled với số lượng items tùy chỉnh (song song, có deadline)
      * @param itemsPerSource Số lượng tin tức cần crawl mỗi source
      */
     public void crawlAllSources(int itemsPerSource) {
@@ -38,13 +54,7 @@ public class SeleniumCrawlService {
         log.info("Starting Selenium crawl for {} enabled sources (items per source: {})",
                 sources.size(), itemsPerSource);
 
-        for (CrawlSource source : sources) {
-            try {
-                crawlSource(source, itemsPerSource);
-            } catch (Exception e) {
-                log.error("Error crawling source {}: {}", source.getName(), e.getMessage(), e);
-            }
-        }
+        crawlExecutor.runAll(sources, source -> crawlSource(source, itemsPerSource));
 
         log.info("Selenium crawl completed for all sources");
     }
@@ -59,43 +69,27 @@ public class SeleniumCrawlService {
     /**
      * Crawl một source cụ thể với số lượng items tùy chỉnh
      * @param itemsPerSource Số lượng tin tức cần crawl
+     * @return số tin mới được lưu
      */
-    public void crawlSource(CrawlSource source, int itemsPerSource) {
+    public int crawlSource(CrawlSource source, int itemsPerSource) {
+        // Feed RSS không cần render, đọc trực tiếp
+        if (source.getType() == CrawlSource.SourceType.RSS) {
+            return crawlService.crawlSource(source, itemsPerSource);
+        }
+
         log.info("Selenium crawling source: {} - {} (items: {})",
                 source.getName(), source.getUrl(), itemsPerSource);
+        int savedCount = 0;
 
-        WebDriver driver = null;
-        try {
-            // Setup ChromeDriver
-            driver = setupChromeDriver();
-
-            List<News> newsList = new ArrayList<>();
-
-            // Crawl theo loại source
-            switch (source.getName().toUpperCase()) {
-                case "CAFEF":
-                    newsList = crawlCafeF(driver, itemsPerSource);
-                    break;
-                case "VIETSTOCK":
-                    newsList = crawlVietStock(driver, itemsPerSource);
-                    break;
-                case "SSI":
-                    newsList = crawlSSI(driver, itemsPerSource);
-                    break;
-                default:
-                    log.warn("Unknown source: {}", source.getName());
-            }
+        try (WebDriverPool.PooledDriver pooled = webDriverPool.borrow()) {
+            // Không tải ảnh, font, video, quảng cáo... khi render
+            pooled.blockUrls(resourceBlockingPolicy.patternsFor(source));
+
+            // Crawl theo selector rules của source
+            List<News> newsList = crawlWithRules(pooled.getDriver(), source, itemsPerSource);
 
             // Lưu vào database
-            int savedCount = 0;
-            for (News news : newsList) {
-                // Check duplicate by URL
-                if (!newsRepository.existsByUrl(news.getUrl())) {
-                    newsRepository.save(news);
-                    savedCount++;
-                    log.debug("Saved news: {}", news.getTitle());
-                }
-            }
+            savedCount = crawlService.saveNew(newsList);
 
             log.info("Crawled {} news items from {} ({} new items saved)",
                     newsList.size(), source.getName(), savedCount);
@@ -103,246 +97,168 @@ public class SeleniumCrawlService {
         } catch (Exception e) {
             log.error("Error crawling source {}: {}", source.getName(), e.getMessage(), e);
         } finally {
-            if (driver != null) {
-                driver.quit();
-            }
+            source.setLastCrawledAt(LocalDateTime.now());
+            crawlSourceRepository.save(source);
         }
-    }
 
-    /**
-     * Crawl một source với số lượng mặc định (15 items)
-     */
-    public void crawlSource(CrawlSource source) {
-        crawlSource(source, 15);
+        return savedCount;
     }
 
     /**
-     * Setup ChromeDriver với options
+     * Crawl một source với số lượng mặc định (15 items)
      */
-    private WebDriver setupChromeDriver() {
-        log.info("Setting up ChromeDriver...");
-        
-        // WebDriverManager tự động download và setup ChromeDriver
-        WebDriverManager.chromedriver().setup();
-        
-        ChromeOptions options = new ChromeOptions();
-        options.addArguments("--headless"); // Chạy không hiển thị browser
-        options.addArguments("--no-sandbox");
-        options.addArguments("--disable-dev-shm-usage");
-        options.addArguments("--disable-gpu");
-        options.addArguments("--window-size=1920,1080");
-        options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
-        
-        WebDriver driver = new ChromeDriver(options);
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(30));
-        
-        log.info("ChromeDriver setup completed");
-        return driver;
+    public int crawlSource(CrawlSource source) {
+        return crawlSource(source, 15);
     }
 
     /**
-     * Crawl CafeF - Tin tức chứng khoán
+     * Crawl một trang listing theo selector rules của source
      * @param itemsPerSource Số lượng tin tức cần crawl
      */
-    private List<News> crawlCafeF(WebDriver driver, int itemsPerSource) {
+    private List<News> crawlWithRules(WebDriver driver, CrawlSource source, int itemsPerSource) {
         List<News> newsList = new ArrayList<>();
 
         try {
-            String url = "https://cafef.vn/chung-khoan.chn";
-            log.info("CafeF: Loading page {} (items: {})", url, itemsPerSource);
-            driver.get(url);
-
-            // Đợi page load
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.tagName("body")));
-
-            // Thử nhiều selector khác nhau
-            List<WebElement> articles = driver.findElements(By.cssSelector("article, .item-news, .box-category-item, .list-news-subfolder li, .tlitem"));
-
-            log.info("CafeF: Found {} articles", articles.size());
-
-            int count = 0;
-            for (WebElement article : articles) {
-                if (count >= itemsPerSource) break;
-                
-                try {
-                    // Tìm title link
-                    WebElement titleElement = null;
-                    try {
-                        titleElement = article.findElement(By.cssSelector("h3 a, h2 a, h4 a, .title a, a[title]"));
-                    } catch (Exception e) {
-                        continue;
-                    }
-                    
-                    if (titleElement != null) {
-                        String title = titleElement.getText().trim();
-                        String newsUrl = titleElement.getAttribute("href");
-                        
-                        if (title.isEmpty() || newsUrl == null || newsUrl.isEmpty()) {
-                            continue;
-                        }
-                        
-                        // Description
-                        String description = "";
-                        try {
-                            WebElement descElement = article.findElement(By.cssSelector(".sapo, .description, p"));
-                            description = descElement.getText().trim();
-                        } catch (Exception e) {
-                            // Ignore
-                        }
-                        
-                        // Image
-                        String imageUrl = null;
-                        try {
-                            WebElement imgElement = article.findElement(By.cssSelector("img"));
-                            imageUrl = imgElement.getAttribute("src");
-                            if (imageUrl == null || imageUrl.isEmpty()) {
-                                imageUrl = imgElement.getAttribute("data-src");
-                            }
-                        } catch (Exception e) {
-                            // Ignore
-                        }
-                        
-                        News news = News.builder()
-                                .title(title)
-                                .url(newsUrl)
-                                .urlHash(String.valueOf(newsUrl.hashCode()))
-                                .source("CAFEF")
-                                .description(description)
-                                .imageUrl(imageUrl)
-                                .publishedAt(LocalDateTime.now())
-                                .crawledAt(LocalDateTime.now())
-                                .build();
-                        
-                        newsList.add(news);
-                        count++;
-                        log.debug("CafeF: Parsed - {}", title);
-                    }
-                } catch (Exception e) {
-                    log.debug("Error parsing CafeF article: {}", e.getMessage());
-                }
+            log.info("{}: Loading page {} (items: {})", source.getName(), source.getUrl(), itemsPerSource);
+            politenessManager.acquire(source.getUrl());
+            driver.get(source.getUrl());
+
+            // Đợi trang sẵn sàng theo điều kiện của source (implicit wait = 0)
+            waitUntilReady(driver, source);
+
+            if (extractionMode == ExtractionMode.PAGE_SOURCE) {
+                // Lấy HTML đã render một lần, trích xuất bằng Jsoup như CrawlService
+                Document doc = Jsoup.parse(driver.getPageSource(), driver.getCurrentUrl());
+                newsList = newsExtractor.extract(doc, source, itemsPerSource);
+                log.info("{}: Extracted {} articles from page source", source.getName(), newsList.size());
+            } else {
+                newsList = extractWithWebElements(driver, source, itemsPerSource);
             }
-            
+
         } catch (Exception e) {
-            log.error("Error crawling CafeF: {}", e.getMessage(), e);
+            log.error("Error crawling {}: {}", source.getName(), e.getMessage(), e);
         }
-        
+
         return newsList;
     }
 
     /**
-     * Crawl VietStock - Tin tức thị trường
-     * @param itemsPerSource Số lượng tin tức cần crawl
+     * Trích xuất từng field qua WebElement (mỗi lần gọi là một round trip tới chromedriver)
      */
-    private List<News> crawlVietStock(WebDriver driver, int itemsPerSource) {
+    private List<News> extractWithWebElements(WebDriver driver, CrawlSource source, int itemsPerSource) {
         List<News> newsList = new ArrayList<>();
+        String sourceName = source.getName().toUpperCase();
+        NewsExtractor.SelectorRules rules = newsExtractor.rulesFor(source);
 
-        try {
-            String url = "https://vietstock.vn/";
-            log.info("VietStock: Loading page {} (items: {})", url, itemsPerSource);
-            driver.get(url);
-
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.tagName("body")));
-
-            List<WebElement> articles = driver.findElements(By.cssSelector(".news-item, article, .box-news li, .list-news li"));
-
-            log.info("VietStock: Found {} articles", articles.size());
-
-            int count = 0;
-            for (WebElement article : articles) {
-                if (count >= itemsPerSource) break;
-                
-                try {
-                    WebElement titleElement = null;
-                    try {
-                        titleElement = article.findElement(By.cssSelector("h3 a, h2 a, .title a, a[title]"));
-                    } catch (Exception e) {
+        By titleBy = By.cssSelector(rules.getTitle());
+        By linkBy = rules.getLink() != null ? By.cssSelector(rules.getLink()) : null;
+        By descBy = By.cssSelector(rules.getDescription());
+        By imageBy = By.cssSelector(rules.getImage());
+        By dateBy = By.cssSelector(rules.getDate());
+
+        List<WebElement> articles = driver.findElements(By.cssSelector(rules.getItem()));
+
+        log.info("{}: Found {} articles", source.getName(), articles.size());
+
+        for (WebElement article : articles) {
+            if (newsList.size() >= itemsPerSource) break;
+
+            try {
+                // findElements không chờ khi thiếu element (implicit wait = 0)
+                WebElement titleElement = first(article, titleBy);
+                if (titleElement == null) {
+                    continue;
+                }
+
+                String title = titleElement.getText().trim();
+                String newsUrl = titleElement.getAttribute("href");
+                if (linkBy != null) {
+                    WebElement linkElement = first(article, linkBy);
+                    if (linkElement == null) {
                         continue;
                     }
-                    
-                    if (titleElement != null) {
-                        String title = titleElement.getText().trim();
-                        String newsUrl = titleElement.getAttribute("href");
-                        
-                        if (title.isEmpty() || newsUrl == null || newsUrl.isEmpty()) {
-                            continue;
-                        }
-                        
-                        String description = "";
-                        try {
-                            WebElement descElement = article.findElement(By.cssSelector(".description, .sapo, p"));
-                            description = descElement.getText().trim();
-                        } catch (Exception e) {
-                            // Ignore
-                        }
-                        
-                        String imageUrl = null;
-                        try {
-                            WebElement imgElement = article.findElement(By.cssSelector("img"));
-                            imageUrl = imgElement.getAttribute("src");
-                            if (imageUrl == null || imageUrl.isEmpty()) {
-                                imageUrl = imgElement.getAttribute("data-src");
-                            }
-                        } catch (Exception e) {
-                            // Ignore
-                        }
-                        
-                        News news = News.builder()
-                                .title(title)
-                                .url(newsUrl)
-                                .urlHash(String.valueOf(newsUrl.hashCode()))
-                                .source("VIETSTOCK")
-                                .description(description)
-                                .imageUrl(imageUrl)
-                                .publishedAt(LocalDateTime.now())
-                                .crawledAt(LocalDateTime.now())
-                                .build();
-                        
-                        newsList.add(news);
-                        count++;
-                        log.debug("VietStock: Parsed - {}", title);
+                    newsUrl = linkElement.getAttribute("href");
+                }
+
+                if (title.isEmpty() || newsUrl == null || newsUrl.isEmpty()) {
+                    continue;
+                }
+
+                // Description
+                WebElement descElement = first(article, descBy);
+                String description = descElement != null ? descElement.getText().trim() : "";
+
+                // Image
+                String imageUrl = null;
+                WebElement imgElement = first(article, imageBy);
+                if (imgElement != null) {
+                    imageUrl = imgElement.getAttribute("src");
+                    if (imageUrl == null || imageUrl.isEmpty()) {
+                        imageUrl = imgElement.getAttribute("data-src");
                     }
-                } catch (Exception e) {
-                    log.debug("Error parsing VietStock article: {}", e.getMessage());
                 }
+
+                // Thời gian đăng
+                LocalDateTime publishedAt = null;
+                WebElement dateElement = first(article, dateBy);
+                if (dateElement != null) {
+                    String datetime = dateElement.getAttribute("datetime");
+                    publishedAt = NewsExtractor.parsePublishedAt(
+                            datetime != null && !datetime.isEmpty() ? datetime : dateElement.getText());
+                }
+
+                News news = News.builder()
+                        .title(title)
+                        .url(newsUrl)
+                        .urlHash(UrlCanonicalizer.urlHash(newsUrl))
+                        .source(sourceName)
+                        .description(description)
+                        .imageUrl(imageUrl)
+                        .publishedAt(publishedAt != null ? publishedAt : LocalDateTime.now())
+                        .crawledAt(LocalDateTime.now())
+                        .build();
+
+                newsList.add(news);
+                log.debug("{}: Parsed - {}", sourceName, title);
+            } catch (Exception e) {
+                log.debug("Error parsing {} article: {}", sourceName, e.getMessage());
             }
-            
-        } catch (Exception e) {
-            log.error("Error crawling VietStock: {}", e.getMessage(), e);
         }
-        
+
         return newsList;
     }
 
     /**
-     * Crawl SSI - Tin tức đầu tư
-     * @param itemsPerSource Số lượng tin tức cần crawl
+     * Chờ điều kiện sẵn sàng của source: readySelector (mặc định là item selector)
+     * có ít nhất readyMinItems phần tử, tối đa ready-timeout
+     * Hết thời gian thì vẫn trích xuất với những gì đã render
      */
-    private List<News> crawlSSI(WebDriver driver, int itemsPerSource) {
-        List<News> newsList = new ArrayList<>();
+    private void waitUntilReady(WebDriver driver, CrawlSource source) {
+        String readySelector = source.getReadySelector() != null && !source.getReadySelector().isBlank()
+                ? source.getReadySelector() : newsExtractor.rulesFor(source).getItem();
+        int minItems = source.getReadyMinItems() != null ? source.getReadyMinItems() : 1;
+        By readyBy = By.cssSelector(readySelector);
 
         try {
-            String url = "https://www.ssi.com.vn/";
-            log.info("SSI: Loading page {} (items: {})", url, itemsPerSource);
-            driver.get(url);
-
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(15));
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.tagName("body")));
-
-            List<WebElement> articles = driver.findElements(By.cssSelector(".news-item, article, .box-news li, .list-news li"));
-
-            log.info("SSI: Found {} articles", articles.size());
-
-            // SSI implementation tương tự VietStock
-            // ... (code tương tự)
-
-        } catch (Exception e) {
-            log.error("Error crawling SSI: {}", e.getMessage(), e);
+            new WebDriverWait(driver, Duration.ofMillis(readyTimeoutMs))
+                    .pollingEvery(Duration.ofMillis(200))
+                    .until(d -> d.findElements(readyBy).size() >= minItems);
+        } catch (TimeoutException e) {
+            log.warn("{}: '{}' did not reach {} elements within {} ms, extracting anyway",
+                    source.getName(), readySelector, minItems, readyTimeoutMs);
         }
+    }
 
-        return newsList;
+    private static WebElement first(WebElement parent, By by) {
+        List<WebElement> elements = parent.findElements(by);
+        return elements.isEmpty() ? null : elements.get(0);
     }
-}
 
+    /**
+     * Cách trích xuất dữ liệu sau khi render
+     */
+    public enum ExtractionMode {
+        PAGE_SOURCE, // getPageSource() một lần rồi parse bằng Jsoup
+        WEB_ELEMENT  // findElement/getText cho từng field
+    }
+}
@@ -1,113 +1,54 @@
 package com.crawl.chungkhoan.service;
 
-import io.github.bonigarcia.wdm.WebDriverManager;
+import com.crawl.chungkhoan.crawler.PageFetcher;
+import com.crawl.chungkhoan.crawler.QuoteParser;
+import com.crawl.chungkhoan.crawler.ResourceBlockingPolicy;
+import com.crawl.chungkhoan.crawler.WebDriverPool;
+import com.crawl.chungkhoan.model.StockQuote;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
 import org.openqa.selenium.By;
+import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebDriver;
-import org.openqa.selenium.WebElement;
-import org.openqa.selenium.chrome.ChromeDriver;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import org.springframework.stereotype.Service;
 
+import java.text.ParseException;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Service lấy dữ liệu thị trường chứng khoán
- * Crawl từ CafeF bằng Selenium
+ * Crawl từ CafeF: thử HTML tĩnh qua PageFetcher trước, fallback sang Selenium
  */
 @Service
+@RequiredArgsConstructor
 @Slf4j
 public class StockMarketService {
 
-    /**
-     * Lấy dữ liệu cổ phiếu từ CafeF bằng Selenium
-     */
-    public List<Map<String, Object>> getStockData() {
-        List<Map<String, Object>> stocks = new ArrayList<>();
-        WebDriver driver = null;
+    private static final String MARKET_URL = "https://cafef.vn/";
+    private static final String STOCK_ROW_SELECTOR =
+            "table.stock-table tr, .stock-item, .top-stock-item, [class*='stock'] tr";
+    private static final int MAX_STOCKS = 8;
 
-        try {
-            log.info("Setting up ChromeDriver for stock data...");
-            WebDriverManager.chromedriver().setup();
-
-            ChromeOptions options = new ChromeOptions();
-            options.addArguments("--headless");
-            options.addArguments("--no-sandbox");
-            options.addArguments("--disable-dev-shm-usage");
-            options.addArguments("--disable-gpu");
-            options.addArguments("--window-size=1920,1080");
-
-            driver = new ChromeDriver(options);
-
-            String url = "https://cafef.vn/";
-            log.info("Loading CafeF homepage: {}", url);
-            driver.get(url);
-
-            WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-            wait.until(ExpectedConditions.presenceOfElementLocated(By.tagName("body")));
-
-            // Tìm bảng top cổ phiếu (thường ở sidebar hoặc homepage)
-            List<WebElement> stockRows = driver.findElements(By.cssSelector(
-                "table.stock-table tr, " +
-                ".stock-item, " +
-                ".top-stock-item, " +
-                "[class*='stock'] tr"
-            ));
-
-            log.info("Found {} potential stock elements", stockRows.size());
-
-            int count = 0;
-            for (WebElement row : stockRows) {
-                if (count >= 8) break;
-
-                try {
-                    String text = row.getText();
-                    if (text == null || text.trim().isEmpty()) continue;
-
-                    // Parse text: "VNM Vinamilk 78.5 +1.2 +1.55%"
-                    String[] parts = text.split("\\s+");
-                    if (parts.length >= 3) {
-                        String symbol = parts[0].trim();
-
-                        // Kiểm tra symbol hợp lệ (3-4 ký tự chữ in hoa)
-                        if (symbol.matches("^[A-Z]{3,4}$")) {
-                            Map<String, Object> stock = new HashMap<>();
-                            stock.put("symbol", symbol);
-                            stock.put("name", parts.length > 1 ? parts[1] : symbol);
-                            stock.put("price", parts.length > 2 ? parseDouble(parts[2]) : 0.0);
-                            stock.put("change", parts.length > 3 ? parseDouble(parts[3]) : 0.0);
-                            stock.put("changePercent", parts.length > 4 ? parseDouble(parts[4].replace("%", "")) : 0.0);
-                            stock.put("volume", 0L);
-
-                            stocks.add(stock);
-                            count++;
-
-                            log.debug("Parsed stock: {}", symbol);
-                        }
-                    }
-                } catch (Exception e) {
-                    log.debug("Error parsing stock element: {}", e.getMessage());
-                }
-            }
+    private final PageFetcher pageFetcher;
+    private final WebDriverPool webDriverPool;
+    private final ResourceBlockingPolicy resourceBlockingPolicy;
 
-            log.info("Successfully crawled {} stocks from CafeF", stocks.size());
+    /**
+     * Lấy dữ liệu cổ phiếu từ CafeF
+     */
+    public List<StockQuote> getStockData() {
+        List<StockQuote> stocks = getStaticStockData();
 
-        } catch (Exception e) {
-            log.error("Error crawling stock data with Selenium: {}", e.getMessage(), e);
-        } finally {
-            if (driver != null) {
-                try {
-                    driver.quit();
-                } catch (Exception e) {
-                    log.warn("Error closing driver: {}", e.getMessage());
-                }
-            }
+        if (stocks.isEmpty()) {
+            log.info("No stocks in static HTML, falling back to Selenium");
+            stocks = getRenderedStockData();
         }
 
         if (stocks.isEmpty()) {
@@ -118,25 +59,81 @@ public class StockMarketService {
     }
 
     /**
-     * Parse double từ string, trả về 0 nếu fail
+     * Lấy dữ liệu cổ phiếu từ HTML tĩnh qua OkHttpClient dùng chung
      */
-    private double parseDouble(String value) {
+    private List<StockQuote> getStaticStockData() {
+        List<StockQuote> stocks = new ArrayList<>();
+
         try {
-            return Double.parseDouble(value.replace(",", "").trim());
+            Document doc = pageFetcher.fetch(MARKET_URL).parse();
+            stocks = parseStockRows(doc);
+
+            log.info("Parsed {} stocks from static CafeF HTML", stocks.size());
         } catch (Exception e) {
-            return 0.0;
+            log.warn("Error fetching static stock data: {}", e.getMessage());
         }
+
+        return stocks;
     }
 
     /**
-     * Parse long từ string, trả về 0 nếu fail
+     * Lấy dữ liệu cổ phiếu từ CafeF bằng Selenium
      */
-    private long parseLong(String value) {
-        try {
-            return Long.parseLong(value.replace(",", "").replace(".", "").trim());
+    private List<StockQuote> getRenderedStockData() {
+        List<StockQuote> stocks = new ArrayList<>();
+
+        try (WebDriverPool.PooledDriver pooled = webDriverPool.borrow()) {
+            WebDriver driver = pooled.getDriver();
+            pooled.blockUrls(resourceBlockingPolicy.patternsFor(null));
+
+            log.info("Loading CafeF homepage: {}", MARKET_URL);
+            driver.get(MARKET_URL);
+
+            // Chờ bảng cổ phiếu render (implicit wait = 0), hết thời gian thì parse những gì đã có
+            try {
+                new WebDriverWait(driver, Duration.ofSeconds(10))
+                        .pollingEvery(Duration.ofMillis(200))
+                        .until(d -> !d.findElements(By.cssSelector(STOCK_ROW_SELECTOR)).isEmpty());
+            } catch (TimeoutException e) {
+                log.warn("Stock rows not rendered within 10s, parsing current page");
+            }
+
+            // Lấy HTML đã render một lần, parse bằng Jsoup như đường tĩnh
+            stocks = parseStockRows(Jsoup.parse(driver.getPageSource(), driver.getCurrentUrl()));
+
+            log.info("Successfully crawled {} stocks from CafeF", stocks.size());
+
         } catch (Exception e) {
-            return 0L;
+            log.error("Error crawling stock data with Selenium: {}", e.getMessage(), e);
         }
+
+        return stocks;
+    }
+
+    /**
+     * Lấy tối đa MAX_STOCKS dòng cổ phiếu hợp lệ từ trang
+     * Dòng không parse được (header, dòng quảng cáo...) được bỏ qua và ghi log
+     */
+    private List<StockQuote> parseStockRows(Document doc) {
+        List<StockQuote> stocks = new ArrayList<>();
+        int failures = 0;
+
+        for (Element row : doc.select(STOCK_ROW_SELECTOR)) {
+            if (stocks.size() >= MAX_STOCKS) break;
+
+            String text = row.text();
+            try {
+                stocks.add(QuoteParser.parseRow(text));
+            } catch (ParseException e) {
+                failures++;
+                log.debug("Skipping stock row '{}': {} at {}", text, e.getMessage(), e.getErrorOffset());
+            }
+        }
+
+        if (failures > 0) {
+            log.debug("Skipped {} unparseable stock rows", failures);
+        }
+        return stocks;
     }
 
     /**
@@ -1,20 +1,28 @@
 package com.crawl.chungkhoan.storage;
 
+import com.crawl.chungkhoan.crawler.UrlCanonicalizer;
 import com.crawl.chungkhoan.model.Alert;
 import com.crawl.chungkhoan.model.CrawlSource;
 import com.crawl.chungkhoan.model.News;
 import com.crawl.chungkhoan.model.User;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
- * In-memory storage for temporary data storage without database
+ * In-memory storage, mọi thay đổi được ghi bền qua StoragePersistence (WAL + snapshot)
+ * và khôi phục khi khởi động
  */
 @Slf4j
 @Component
@@ -26,15 +34,45 @@ public class InMemoryStorage {
     private final AtomicLong alertIdCounter = new AtomicLong(1);
     private final AtomicLong sourceIdCounter = new AtomicLong(1);
 
-    // Storage maps
+    // Storage maps (newsByUrlHash: hash 128-bit của URL chuẩn hóa -> news)
     private final Map<Long, User> users = new ConcurrentHashMap<>();
     private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
     private final Map<Long, News> news = new ConcurrentHashMap<>();
     private final Map<String, News> newsByUrlHash = new ConcurrentHashMap<>();
+    // URL saveNewsIfAbsent đã giữ chỗ, đang chờ ghi WAL
+    private final Set<String> pendingUrls = ConcurrentHashMap.newKeySet();
+
+    // Index theo thời gian: (publishedAt giảm dần, id giảm dần) -> news
+    private final ConcurrentNavigableMap<NewsKey, News> newsByTime = new ConcurrentSkipListMap<>();
+    // Map: source -> index thời gian riêng của nguồn đó kèm số lượng
+    private final Map<String, SourceIndex> newsBySource = new ConcurrentHashMap<>();
+    // Inverted index full-text (title / description / content)
+    private final NewsSearchIndex searchIndex = new NewsSearchIndex();
+    // Map: id -> vị trí đang nằm trong các index (publishedAt / source có thể bị sửa trực tiếp trên object trước khi save lại)
+    private final Map<Long, IndexEntry> newsIndexEntries = new ConcurrentHashMap<>();
     private final Map<Long, Alert> alerts = new ConcurrentHashMap<>();
     private final Map<Long, CrawlSource> sources = new ConcurrentHashMap<>();
 
-    public InMemoryStorage() {
+    // Khóa theo id (striped): thay đổi được ghi vào WAL rồi áp dụng theo cùng một thứ tự
+    private static final int WRITE_LOCK_STRIPES = 64;
+    private final Object[] writeLocks = new Object[WRITE_LOCK_STRIPES];
+
+    private final StoragePersistence persistence;
+
+    public InMemoryStorage(StoragePersistence persistence) {
+        this.persistence = persistence;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (persistence.recover(this)) {
+            log.info("InMemoryStorage recovered: {} users, {} news, {} alerts, {} sources",
+                    users.size(), news.size(), alerts.size(), sources.size());
+            return;
+        }
         log.info("InMemoryStorage initialized - using in-memory data storage");
         initializeDefaultData();
     }
@@ -73,24 +111,33 @@ public class InMemoryStorage {
                 CrawlSource.builder()
                         .id(sourceIdCounter.getAndIncrement())
                         .name("CafeF")
-                        .url("https://cafef.vn")
+                        .url("https://cafef.vn/chung-khoan.chn")
                         .type(CrawlSource.SourceType.NEWS)
+                        .cssSelector("article, .item-news, .box-category-item, .list-news-subfolder li, .tlitem")
+                        .titleSelector("h3 a, h2 a, h4 a, .title a, a[title]")
+                        .descriptionSelector(".sapo, .description, p")
                         .enabled(true)
                         .crawlInterval(300)
                         .build(),
                 CrawlSource.builder()
                         .id(sourceIdCounter.getAndIncrement())
                         .name("VietStock")
-                        .url("https://vietstock.vn")
+                        .url("https://vietstock.vn/")
                         .type(CrawlSource.SourceType.NEWS)
+                        .cssSelector(".news-item, article, .box-news li, .list-news li")
+                        .titleSelector("h3 a, h2 a, .title a, a[title]")
+                        .descriptionSelector(".description, .sapo, p")
                         .enabled(true)
                         .crawlInterval(300)
                         .build(),
                 CrawlSource.builder()
                         .id(sourceIdCounter.getAndIncrement())
                         .name("SSI")
-                        .url("https://www.ssi.com.vn")
+                        .url("https://www.ssi.com.vn/")
                         .type(CrawlSource.SourceType.NEWS)
+                        .cssSelector(".news-item, article, .box-news li, .list-news li")
+                        .titleSelector("h3 a, h2 a, .title a, a[title]")
+                        .descriptionSelector(".description, .summary, p")
                         .enabled(true)
                         .crawlInterval(300)
                         .build()
@@ -146,9 +193,13 @@ public class InMemoryStorage {
         if (user.getId() == null) {
             user.setId(userIdCounter.getAndIncrement());
         }
+        write(user.getId(), StorageRecord.put(StorageRecord.Kind.USER, user), () -> putUser(user));
+        return user;
+    }
+
+    private void putUser(User user) {
         users.put(user.getId(), user);
         usersByEmail.put(user.getEmail(), user);
-        return user;
     }
 
     public Optional<User> findUserById(Long id) {
@@ -164,6 +215,10 @@ public class InMemoryStorage {
     }
 
     public void deleteUser(Long id) {
+        write(id, StorageRecord.delete(StorageRecord.Kind.USER, id), () -> removeUser(id));
+    }
+
+    private void removeUser(Long id) {
         User user = users.remove(id);
         if (user != null) {
             usersByEmail.remove(user.getEmail());
@@ -175,11 +230,102 @@ public class InMemoryStorage {
         if (newsItem.getId() == null) {
             newsItem.setId(newsIdCounter.getAndIncrement());
         }
+        if (newsItem.getUrlHash() == null) {
+            newsItem.setUrlHash(UrlCanonicalizer.urlHash(newsItem.getUrl()));
+        }
+        write(newsItem.getId(), StorageRecord.put(StorageRecord.Kind.NEWS, newsItem), () -> putNews(newsItem));
+        return newsItem;
+    }
+
+    /**
+     * Lưu tin chỉ khi id vẫn còn trong storage; kiểm tra và ghi trong cùng khóa với deleteNews
+     * nên tin bị xóa trong lúc caller đang xử lý không bị tạo lại
+     * @return false nếu tin đã bị xóa
+     */
+    public boolean updateNewsIfPresent(News newsItem) {
+        synchronized (writeLock(newsItem.getId())) {
+            if (!news.containsKey(newsItem.getId())) {
+                return false;
+            }
+            saveNews(newsItem);
+            return true;
+        }
+    }
+
+    private void putNews(News newsItem) {
         news.put(newsItem.getId(), newsItem);
         if (newsItem.getUrlHash() != null) {
             newsByUrlHash.put(newsItem.getUrlHash(), newsItem);
         }
-        return newsItem;
+        indexNews(newsItem);
+    }
+
+    /**
+     * Lưu tin nếu URL (chuẩn hóa) chưa có; URL được giữ chỗ bằng putIfAbsent trong pendingUrls
+     * nên hai luồng crawl cùng gặp một URL chỉ có một luồng lưu được
+     * Chỗ giữ không hiện ra với luồng đọc và được trả lại nếu ghi WAL lỗi
+     * @return true nếu tin được lưu, false nếu URL đã tồn tại
+     */
+    public boolean saveNewsIfAbsent(News newsItem) {
+        String urlHash = UrlCanonicalizer.urlHash(newsItem.getUrl());
+        if (urlHash == null) {
+            return false;
+        }
+        newsItem.setUrlHash(urlHash);
+        if (newsItem.getId() == null) {
+            // Cấp id trước khi tin hiện ra trong index URL (tin trùng làm hụt id, không sao)
+            newsItem.setId(newsIdCounter.getAndIncrement());
+        }
+
+        if (newsByUrlHash.containsKey(urlHash) || !pendingUrls.add(urlHash)) {
+            return false;
+        }
+        try {
+            // Luồng khác có thể vừa lưu xong URL này giữa lần kiểm tra trên và lúc giữ chỗ
+            if (newsByUrlHash.containsKey(urlHash)) {
+                return false;
+            }
+            synchronized (writeLock(newsItem.getId())) {
+                persistence.await(persistence.append(StorageRecord.put(StorageRecord.Kind.NEWS, newsItem)));
+                putNews(newsItem);
+            }
+            return true;
+        } finally {
+            // Bỏ chỗ giữ sau khi tin đã vào index URL (hoặc ghi lỗi)
+            pendingUrls.remove(urlHash);
+        }
+    }
+
+    /**
+     * Cập nhật index thời gian và index theo nguồn; compute() khóa theo id nên các lần save
+     * cùng một tin không chen nhau
+     */
+    private void indexNews(News newsItem) {
+        IndexEntry entry = new IndexEntry(new NewsKey(newsItem.getPublishedAt(), newsItem.getId()), newsItem.getSource());
+        newsIndexEntries.compute(newsItem.getId(), (id, previous) -> {
+            if (previous != null && !previous.equals(entry)) {
+                unindexNews(previous);
+            }
+            newsByTime.put(entry.key, newsItem);
+            if (entry.source != null) {
+                SourceIndex sourceIndex = newsBySource.computeIfAbsent(entry.source, k -> new SourceIndex());
+                if (sourceIndex.byTime.put(entry.key, newsItem) == null) {
+                    sourceIndex.count.incrementAndGet();
+                }
+            }
+            searchIndex.index(newsItem, entry.key);
+            return entry;
+        });
+    }
+
+    private void unindexNews(IndexEntry entry) {
+        newsByTime.remove(entry.key);
+        if (entry.source != null) {
+            SourceIndex sourceIndex = newsBySource.get(entry.source);
+            if (sourceIndex != null && sourceIndex.byTime.remove(entry.key) != null) {
+                sourceIndex.count.decrementAndGet();
+            }
+        }
     }
 
     public Optional<News> findNewsById(Long id) {
@@ -190,31 +336,145 @@ public class InMemoryStorage {
         return Optional.ofNullable(newsByUrlHash.get(urlHash));
     }
 
+    /**
+     * Tra tin theo URL (chuẩn hóa trước khi hash): O(1)
+     */
+    public Optional<News> findNewsByUrl(String url) {
+        String urlHash = UrlCanonicalizer.urlHash(url);
+        return urlHash != null ? Optional.ofNullable(newsByUrlHash.get(urlHash)) : Optional.empty();
+    }
+
+    /**
+     * Toàn bộ tin, mới nhất trước (đọc thẳng từ index, không sort)
+     */
     public List<News> findAllNews() {
-        return news.values().stream()
-                .sorted(Comparator.comparing(News::getPublishedAt).reversed())
+        return new ArrayList<>(newsByTime.values());
+    }
+
+    /**
+     * Một trang tin mới nhất trước theo offset: vẫn phải đi qua offset tin đầu, chỉ giữ cho API phân trang theo số trang
+     * Duyệt trang sâu dùng findNewsPageAfter
+     */
+    public List<News> findNewsPage(int offset, int limit) {
+        return newsByTime.values().stream()
+                .skip(offset)
+                .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Trang tin ngay sau cursor (tin cuối trang trước), mới nhất trước: seek O(log n + limit) bằng tailMap
+     * @param after null để lấy trang đầu
+     */
+    public List<News> findNewsPageAfter(NewsCursor after, int limit) {
+        return page(after != null ? newsByTime.tailMap(after.key(), false) : newsByTime, limit);
+    }
+
+    private static List<News> page(NavigableMap<NewsKey, News> index, int limit) {
+        List<News> result = new ArrayList<>(Math.min(limit, 64));
+        Iterator<News> it = index.values().iterator();
+        while (result.size() < limit && it.hasNext()) {
+            result.add(it.next());
+        }
+        return result;
+    }
+
+    public long countNews() {
+        return news.size();
+    }
+
+    /**
+     * Tin của một nguồn, mới nhất trước (đọc từ index của nguồn, không quét toàn bộ)
+     */
     public List<News> findNewsBySource(String source) {
-        return news.values().stream()
-                .filter(n -> source.equals(n.getSource()))
-                .sorted(Comparator.comparing(News::getPublishedAt).reversed())
+        SourceIndex sourceIndex = newsBySource.get(source);
+        return sourceIndex != null ? new ArrayList<>(sourceIndex.byTime.values()) : new ArrayList<>();
+    }
+
+    /**
+     * Một trang tin của một nguồn theo offset, giữ cho phân trang theo số trang; duyệt sâu dùng findNewsBySourceAfter
+     */
+    public List<News> findNewsBySource(String source, int offset, int limit) {
+        SourceIndex sourceIndex = newsBySource.get(source);
+        if (sourceIndex == null) {
+            return new ArrayList<>();
+        }
+        return sourceIndex.byTime.values().stream()
+                .skip(offset)
+                .limit(limit)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Trang tin của một nguồn ngay sau cursor, mới nhất trước: seek trong index của nguồn bằng tailMap
+     * @param after null để lấy trang đầu
+     */
+    public List<News> findNewsBySourceAfter(String source, NewsCursor after, int limit) {
+        SourceIndex sourceIndex = newsBySource.get(source);
+        if (sourceIndex == null) {
+            return new ArrayList<>();
+        }
+        return page(after != null ? sourceIndex.byTime.tailMap(after.key(), false) : sourceIndex.byTime, limit);
+    }
+
+    public long countNewsBySource(String source) {
+        SourceIndex sourceIndex = newsBySource.get(source);
+        return sourceIndex != null ? sourceIndex.count.get() : 0;
+    }
+
+    /**
+     * Số tin theo từng nguồn, không quét tin
+     */
+    public Map<String, Integer> countNewsBySources() {
+        Map<String, Integer> counts = new TreeMap<>();
+        newsBySource.forEach((source, sourceIndex) -> {
+            int count = sourceIndex.count.get();
+            if (count > 0) {
+                counts.put(source, count);
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * Tìm full-text trên title / description / content, mới nhất trước
+     * Từ khóa không dấu khớp cả bản có dấu; "..." để tìm cụm từ
+     */
+    public List<News> searchNews(String query, int offset, int limit) {
+        return searchIndex.search(query, offset, limit);
+    }
+
+    /**
+     * Tin có publishedAt trong (start, end), mới nhất trước: O(log n + k)
+     */
     public List<News> findNewsByDateRange(LocalDateTime start, LocalDateTime end) {
-        return news.values().stream()
-                .filter(n -> n.getPublishedAt().isAfter(start) && n.getPublishedAt().isBefore(end))
-                .sorted(Comparator.comparing(News::getPublishedAt).reversed())
-                .collect(Collectors.toList());
+        // (end, MIN_VALUE) đứng sau mọi key có publishedAt = end, (start, MAX_VALUE) đứng trước mọi key có publishedAt = start
+        return new ArrayList<>(newsByTime.subMap(
+                new NewsKey(end, Long.MIN_VALUE), false,
+                new NewsKey(start, Long.MAX_VALUE), false).values());
+    }
+
+    /**
+     * Tin có publishedAt sau since, mới nhất trước: O(log n + k)
+     */
+    public List<News> findNewsSince(LocalDateTime since) {
+        return new ArrayList<>(newsByTime.headMap(new NewsKey(since, Long.MAX_VALUE), false).values());
     }
 
     public void deleteNews(Long id) {
+        write(id, StorageRecord.delete(StorageRecord.Kind.NEWS, id), () -> removeNews(id));
+    }
+
+    private void removeNews(Long id) {
         News newsItem = news.remove(id);
         if (newsItem != null && newsItem.getUrlHash() != null) {
-            newsByUrlHash.remove(newsItem.getUrlHash());
+            newsByUrlHash.remove(newsItem.getUrlHash(), newsItem);
         }
+        newsIndexEntries.computeIfPresent(id, (key, previous) -> {
+            unindexNews(previous);
+            searchIndex.remove(id);
+            return null;
+        });
     }
 
     // Alert operations
@@ -222,7 +482,7 @@ public class InMemoryStorage {
         if (alert.getId() == null) {
             alert.setId(alertIdCounter.getAndIncrement());
         }
-        alerts.put(alert.getId(), alert);
+        write(alert.getId(), StorageRecord.put(StorageRecord.Kind.ALERT, alert), () -> alerts.put(alert.getId(), alert));
         return alert;
     }
 
@@ -243,7 +503,7 @@ public class InMemoryStorage {
     }
 
     public void deleteAlert(Long id) {
-        alerts.remove(id);
+        write(id, StorageRecord.delete(StorageRecord.Kind.ALERT, id), () -> alerts.remove(id));
     }
 
     // CrawlSource operations
@@ -251,7 +511,7 @@ public class InMemoryStorage {
         if (source.getId() == null) {
             source.setId(sourceIdCounter.getAndIncrement());
         }
-        sources.put(source.getId(), source);
+        write(source.getId(), StorageRecord.put(StorageRecord.Kind.SOURCE, source), () -> sources.put(source.getId(), source));
         return source;
     }
 
@@ -270,7 +530,7 @@ public class InMemoryStorage {
     }
 
     public void deleteSource(Long id) {
-        sources.remove(id);
+        write(id, StorageRecord.delete(StorageRecord.Kind.SOURCE, id), () -> sources.remove(id));
     }
 
     // Statistics
@@ -278,6 +538,9 @@ public class InMemoryStorage {
         Map<String, Object> stats = new HashMap<>();
         stats.put("totalUsers", users.size());
         stats.put("totalNews", news.size());
+        stats.put("newsBySource", countNewsBySources());
+        stats.put("searchIndex", searchIndex.getStats());
+        stats.put("persistence", persistence.getStats());
         stats.put("totalAlerts", alerts.size());
         stats.put("totalSources", sources.size());
         stats.put("enabledSources", findEnabledSources().size());
@@ -287,13 +550,165 @@ public class InMemoryStorage {
 
     // Clear all data (for testing)
     public void clearAll() {
+        // Giữ mọi khóa: không lần ghi nào chen giữa lúc xóa và lúc record CLEAR vào WAL
+        withAllWriteLocks(() -> {
+            persistence.await(persistence.append(StorageRecord.clear()));
+            clearData();
+            return null;
+        });
+        log.warn("All in-memory data cleared");
+    }
+
+    private void clearData() {
         users.clear();
         usersByEmail.clear();
         news.clear();
         newsByUrlHash.clear();
+        newsByTime.clear();
+        newsBySource.clear();
+        newsIndexEntries.clear();
+        searchIndex.clear();
         alerts.clear();
         sources.clear();
-        log.warn("All in-memory data cleared");
     }
-}
 
+    // Persistence
+
+    /**
+     * Ghi vào WAL, chờ fsync rồi mới áp dụng thay đổi, cả ba trong khóa theo id
+     * Ghi WAL lỗi thì thay đổi không được áp dụng và caller nhận IllegalStateException
+     */
+    private void write(Long id, StorageRecord record, Runnable change) {
+        synchronized (writeLock(id)) {
+            persistence.await(persistence.append(record));
+            change.run();
+        }
+    }
+
+    /**
+     * Chạy action khi giữ toàn bộ khóa ghi: không có thay đổi nào đã vào WAL mà chưa được áp dụng
+     */
+    <T> T withAllWriteLocks(Supplier<T> action) {
+        return withAllWriteLocks(0, action);
+    }
+
+    /**
+     * Lấy khóa theo thứ tự stripe tăng dần
+     */
+    private <T> T withAllWriteLocks(int stripe, Supplier<T> action) {
+        if (stripe == writeLocks.length) {
+            return action.get();
+        }
+        synchronized (writeLocks[stripe]) {
+            return withAllWriteLocks(stripe + 1, action);
+        }
+    }
+
+    private Object writeLock(Long id) {
+        return writeLocks[Long.hashCode(id) & (WRITE_LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * Áp dụng một record khi khôi phục (không ghi lại vào WAL)
+     */
+    void apply(StorageRecord record) {
+        switch (record.op) {
+            case PUT -> {
+                switch (record.kind) {
+                    case USER -> {
+                        User user = (User) record.entity;
+                        putUser(user);
+                        advance(userIdCounter, user.getId());
+                    }
+                    case NEWS -> {
+                        News newsItem = (News) record.entity;
+                        putNews(newsItem);
+                        advance(newsIdCounter, newsItem.getId());
+                    }
+                    case ALERT -> {
+                        Alert alert = (Alert) record.entity;
+                        alerts.put(alert.getId(), alert);
+                        advance(alertIdCounter, alert.getId());
+                    }
+                    case SOURCE -> {
+                        CrawlSource source = (CrawlSource) record.entity;
+                        sources.put(source.getId(), source);
+                        advance(sourceIdCounter, source.getId());
+                    }
+                }
+            }
+            case DELETE -> {
+                switch (record.kind) {
+                    case USER -> removeUser(record.id);
+                    case NEWS -> removeNews(record.id);
+                    case ALERT -> alerts.remove(record.id);
+                    case SOURCE -> sources.remove(record.id);
+                }
+            }
+            case CLEAR -> clearData();
+            case COUNTERS -> {
+                advance(userIdCounter, record.counters.getOrDefault("user", 1L) - 1);
+                advance(newsIdCounter, record.counters.getOrDefault("news", 1L) - 1);
+                advance(alertIdCounter, record.counters.getOrDefault("alert", 1L) - 1);
+                advance(sourceIdCounter, record.counters.getOrDefault("source", 1L) - 1);
+            }
+        }
+    }
+
+    /**
+     * Toàn bộ dữ liệu dưới dạng record cho snapshot: bộ đếm id trước, rồi từng entity
+     */
+    void forEachRecord(Consumer<StorageRecord> consumer) {
+        Map<String, Long> counters = new HashMap<>();
+        counters.put("user", userIdCounter.get());
+        counters.put("news", newsIdCounter.get());
+        counters.put("alert", alertIdCounter.get());
+        counters.put("source", sourceIdCounter.get());
+        consumer.accept(StorageRecord.counters(counters));
+
+        users.values().forEach(user -> consumer.accept(StorageRecord.put(StorageRecord.Kind.USER, user)));
+        sources.values().forEach(source -> consumer.accept(StorageRecord.put(StorageRecord.Kind.SOURCE, source)));
+        alerts.values().forEach(alert -> consumer.accept(StorageRecord.put(StorageRecord.Kind.ALERT, alert)));
+        news.values().forEach(newsItem -> consumer.accept(StorageRecord.put(StorageRecord.Kind.NEWS, newsItem)));
+    }
+
+    /**
+     * Đảm bảo id cấp tiếp theo lớn hơn id đã dùng
+     */
+    private static void advance(AtomicLong counter, Long usedId) {
+        if (usedId != null) {
+            counter.accumulateAndGet(usedId + 1, Math::max);
+        }
+    }
+
+    /**
+     * Vị trí của một tin trong các index
+     */
+    private static final class IndexEntry {
+        private final NewsKey key;
+        private final String source;
+
+        IndexEntry(NewsKey key, String source) {
+            this.key = key;
+            this.source = source;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IndexEntry other && key.equals(other.key) && Objects.equals(source, other.source);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(key, source);
+        }
+    }
+
+    /**
+     * Index thời gian của một nguồn; size() của skip list là O(n) nên đếm riêng
+     */
+    private static final class SourceIndex {
+        private final ConcurrentNavigableMap<NewsKey, News> byTime = new ConcurrentSkipListMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+    }
+}
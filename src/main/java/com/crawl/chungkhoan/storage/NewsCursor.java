@@ -0,0 +1,49 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.model.News;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Vị trí của tin cuối trang trước trong index theo thời gian: trang sau seek thẳng tới key này thay vì bỏ qua offset
+ * Dạng chuỗi "<publishedAt>_<id>" (publishedAt rỗng nếu tin không có ngày), dùng làm tham số cursor của API
+ */
+public final class NewsCursor {
+
+    private final NewsKey key;
+
+    private NewsCursor(NewsKey key) {
+        this.key = key;
+    }
+
+    public static NewsCursor of(News news) {
+        return new NewsCursor(new NewsKey(news.getPublishedAt(), news.getId()));
+    }
+
+    /**
+     * @throws IllegalArgumentException nếu chuỗi không đúng dạng
+     */
+    public static NewsCursor parse(String value) {
+        int separator = value.lastIndexOf('_');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + value);
+        }
+        try {
+            String time = value.substring(0, separator);
+            LocalDateTime publishedAt = time.isEmpty() ? null : LocalDateTime.parse(time);
+            return new NewsCursor(new NewsKey(publishedAt, Long.parseLong(value.substring(separator + 1))));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + value, e);
+        }
+    }
+
+    NewsKey key() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return (key.publishedAt != null ? key.publishedAt.toString() : "") + "_" + key.id;
+    }
+}
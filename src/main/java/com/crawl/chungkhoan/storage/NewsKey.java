@@ -0,0 +1,45 @@
+package com.crawl.chungkhoan.storage;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Key của các index tin theo thời gian: publishedAt giảm dần (null xếp cuối), cùng thời điểm thì id giảm dần
+ */
+final class NewsKey implements Comparable<NewsKey> {
+
+    final LocalDateTime publishedAt;
+    final long id;
+
+    NewsKey(LocalDateTime publishedAt, long id) {
+        this.publishedAt = publishedAt;
+        this.id = id;
+    }
+
+    @Override
+    public int compareTo(NewsKey other) {
+        if (publishedAt != other.publishedAt) {
+            if (publishedAt == null) {
+                return 1;
+            }
+            if (other.publishedAt == null) {
+                return -1;
+            }
+            int byTime = other.publishedAt.compareTo(publishedAt);
+            if (byTime != 0) {
+                return byTime;
+            }
+        }
+        return Long.compare(other.id, id);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof NewsKey other && id == other.id && Objects.equals(publishedAt, other.publishedAt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(publishedAt, id);
+    }
+}
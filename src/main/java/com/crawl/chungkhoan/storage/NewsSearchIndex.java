@@ -0,0 +1,405 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.model.News;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inverted index full-text cho tin (title, description, content)
+ * Token được chuẩn hóa Unicode NFC + chữ thường, index cả dạng có dấu lẫn dạng bỏ dấu (đ -> d):
+ * từ khóa không dấu khớp theo dạng bỏ dấu ("co phieu" khớp "cổ phiếu"), từ khóa có dấu khớp chính xác
+ * Postings sắp theo thời gian đăng (mới nhất trước) nên trang đầu không cần sort
+ *
+ * Truy vấn: AND mọi từ, từ cuối khớp tiền tố; đặt trong ngoặc kép thì là cụm từ liền nhau
+ * Tiền tố mở rộng ra quá nhiều term thì quét mọi tài liệu theo thời gian thay vì gộp postings
+ * index()/remove() của cùng một id phải được gọi tuần tự (InMemoryStorage gọi trong compute() theo id)
+ */
+class NewsSearchIndex {
+
+    // Số term tối đa được gộp postings khi mở rộng tiền tố; nhiều hơn thì quét toàn bộ
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    // term -> postings
+    private final ConcurrentNavigableMap<String, Posting> exactTerms = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<String, Posting> foldedTerms = new ConcurrentSkipListMap<>();
+
+    // Map: id -> tài liệu đã index kèm các term của nó (để cập nhật / xóa tăng dần)
+    private final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+
+    // Mọi tài liệu theo thời gian, dùng khi tiền tố quá rộng để gộp postings
+    private final ConcurrentSkipListSet<NewsKey> allKeys = new ConcurrentSkipListSet<>();
+
+    /**
+     * Index (lại) một tin; chỉ các term thay đổi mới bị cập nhật postings
+     */
+    void index(News news, NewsKey key) {
+        Set<String> exact = new HashSet<>();
+        Set<String> folded = new HashSet<>();
+        for (String field : fields(news)) {
+            for (String token : tokenize(normalize(field))) {
+                exact.add(token);
+                folded.add(fold(token));
+            }
+        }
+
+        Doc previous = docs.put(news.getId(), new Doc(key, news, exact, folded));
+        allKeys.add(key);
+        if (previous != null && previous.key.equals(key)) {
+            update(exactTerms, previous.exact, exact, key);
+            update(foldedTerms, previous.folded, folded, key);
+        } else {
+            if (previous != null) {
+                allKeys.remove(previous.key);
+                unpost(exactTerms, previous.exact, previous.key);
+                unpost(foldedTerms, previous.folded, previous.key);
+            }
+            post(exactTerms, exact, key);
+            post(foldedTerms, folded, key);
+        }
+    }
+
+    void remove(long id) {
+        Doc previous = docs.remove(id);
+        if (previous != null) {
+            allKeys.remove(previous.key);
+            unpost(exactTerms, previous.exact, previous.key);
+            unpost(foldedTerms, previous.folded, previous.key);
+        }
+    }
+
+    void clear() {
+        docs.clear();
+        allKeys.clear();
+        exactTerms.clear();
+        foldedTerms.clear();
+    }
+
+    /**
+     * Tìm tin khớp truy vấn, mới nhất trước
+     */
+    List<News> search(String query, int offset, int limit) {
+        if (query == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        String trimmed = query.trim();
+        boolean phrase = trimmed.length() > 1 && trimmed.startsWith("\"") && trimmed.endsWith("\"");
+
+        List<String> tokens = tokenize(normalize(trimmed));
+        if (tokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        int n = tokens.size();
+        String[] terms = new String[n];
+        boolean[] useFolded = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            String token = tokens.get(i);
+            terms[i] = token;
+            useFolded[i] = fold(token).equals(token);
+        }
+
+        // Các từ trước từ cuối phải khớp chính xác; chạy trên postings ngắn nhất
+        Posting driver = null;
+        for (int i = 0; i < n - 1; i++) {
+            Posting posting = dictionary(useFolded[i]).get(terms[i]);
+            if (posting == null || posting.size.get() == 0) {
+                return new ArrayList<>();
+            }
+            if (driver == null || posting.size.get() < driver.size.get()) {
+                driver = posting;
+            }
+        }
+        Iterator<NewsKey> candidates = driver != null
+                ? driver.keys.iterator()
+                : prefixCandidates(dictionary(useFolded[n - 1]), terms[n - 1]);
+
+        List<News> results = new ArrayList<>();
+        int skipped = 0;
+        while (candidates.hasNext() && results.size() < limit) {
+            NewsKey key = candidates.next();
+            Doc doc = docs.get(key.id);
+            // Bỏ postings cũ chưa kịp gỡ khi tin đang được index lại
+            if (doc == null || !doc.key.equals(key) || !matches(doc, terms, useFolded)) {
+                continue;
+            }
+            if (phrase && n > 1 && !containsPhrase(doc.news, terms, useFolded)) {
+                continue;
+            }
+            if (skipped < offset) {
+                skipped++;
+                continue;
+            }
+            results.add(doc.news);
+        }
+        return results;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("documents", docs.size());
+        stats.put("exactTerms", exactTerms.size());
+        stats.put("foldedTerms", foldedTerms.size());
+        return stats;
+    }
+
+    private ConcurrentNavigableMap<String, Posting> dictionary(boolean folded) {
+        return folded ? foldedTerms : exactTerms;
+    }
+
+    private static boolean matches(Doc doc, String[] terms, boolean[] useFolded) {
+        int last = terms.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (!(useFolded[i] ? doc.folded : doc.exact).contains(terms[i])) {
+                return false;
+            }
+        }
+        Set<String> lastTerms = useFolded[last] ? doc.folded : doc.exact;
+        if (lastTerms.contains(terms[last])) {
+            return true;
+        }
+        for (String term : lastTerms) {
+            if (term.startsWith(terms[last])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Các từ xuất hiện liền nhau trong cùng một field, từ cuối khớp tiền tố
+     */
+    private static boolean containsPhrase(News news, String[] terms, boolean[] useFolded) {
+        int last = terms.length - 1;
+        for (String field : fields(news)) {
+            List<String> tokens = tokenize(normalize(field));
+            next:
+            for (int start = 0; start + terms.length <= tokens.size(); start++) {
+                for (int j = 0; j <= last; j++) {
+                    String token = useFolded[j] ? fold(tokens.get(start + j)) : tokens.get(start + j);
+                    if (j == last ? !token.startsWith(terms[j]) : !token.equals(terms[j])) {
+                        continue next;
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ứng viên cho từ cuối khớp tiền tố, theo thứ tự thời gian
+     * Tối đa MAX_PREFIX_EXPANSIONS term thì gộp postings, nhiều hơn thì quét mọi tài liệu
+     * (matches() lọc lại) để không bỏ sót kết quả của các term vượt ngưỡng
+     */
+    private Iterator<NewsKey> prefixCandidates(ConcurrentNavigableMap<String, Posting> dictionary, String prefix) {
+        Collection<Posting> postings = dictionary.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+        List<Posting> expanded = new ArrayList<>();
+        for (Posting posting : postings) {
+            if (expanded.size() == MAX_PREFIX_EXPANSIONS) {
+                return allKeys.iterator();
+            }
+            expanded.add(posting);
+        }
+        return mergeIterator(expanded);
+    }
+
+    /**
+     * Gộp các postings theo thứ tự thời gian (k-way merge), bỏ key trùng
+     */
+    private static Iterator<NewsKey> mergeIterator(List<Posting> postings) {
+        PriorityQueue<PeekingIterator> heads = new PriorityQueue<>(Comparator.comparing(PeekingIterator::peek));
+        for (Posting posting : postings) {
+            PeekingIterator iterator = new PeekingIterator(posting.keys.iterator());
+            if (iterator.peek() != null) {
+                heads.add(iterator);
+            }
+        }
+
+        return new Iterator<>() {
+            private NewsKey previous;
+
+            @Override
+            public boolean hasNext() {
+                while (!heads.isEmpty() && heads.peek().peek().equals(previous)) {
+                    advance();
+                }
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public NewsKey next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                previous = heads.peek().peek();
+                advance();
+                return previous;
+            }
+
+            private void advance() {
+                PeekingIterator head = heads.poll();
+                head.advance();
+                if (head.peek() != null) {
+                    heads.add(head);
+                }
+            }
+        };
+    }
+
+    private static void update(Map<String, Posting> dictionary, Set<String> before, Set<String> after, NewsKey key) {
+        for (String term : before) {
+            if (!after.contains(term)) {
+                Posting posting = dictionary.get(term);
+                if (posting != null) {
+                    posting.remove(key);
+                }
+            }
+        }
+        for (String term : after) {
+            if (!before.contains(term)) {
+                dictionary.computeIfAbsent(term, t -> new Posting()).add(key);
+            }
+        }
+    }
+
+    private static void post(Map<String, Posting> dictionary, Set<String> terms, NewsKey key) {
+        for (String term : terms) {
+            dictionary.computeIfAbsent(term, t -> new Posting()).add(key);
+        }
+    }
+
+    private static void unpost(Map<String, Posting> dictionary, Set<String> terms, NewsKey key) {
+        for (String term : terms) {
+            Posting posting = dictionary.get(term);
+            if (posting != null) {
+                posting.remove(key);
+            }
+        }
+    }
+
+    private static List<String> fields(News news) {
+        List<String> fields = new ArrayList<>(3);
+        if (news.getTitle() != null) {
+            fields.add(news.getTitle());
+        }
+        if (news.getDescription() != null) {
+            fields.add(news.getDescription());
+        }
+        if (news.getContent() != null) {
+            fields.add(news.getContent());
+        }
+        return fields;
+    }
+
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Tách token theo chữ / số (text đã normalize)
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            tokens.add(text.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt: tách dấu (NFD) rồi bỏ các ký tự dấu, đ -> d
+     */
+    static String fold(String token) {
+        boolean ascii = true;
+        for (int i = 0; i < token.length() && ascii; i++) {
+            ascii = token.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return token;
+        }
+
+        String decomposed = Normalizer.normalize(token, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            folded.append(c == '\u0111' ? 'd' : c); // đ không tách được bằng NFD
+        }
+        return folded.toString();
+    }
+
+    /**
+     * Postings của một term; size() của skip list là O(n) nên đếm riêng.
+     * Postings rỗng được giữ lại (gỡ khỏi dictionary sẽ race với lần thêm đồng thời)
+     */
+    private static final class Posting {
+        private final ConcurrentSkipListSet<NewsKey> keys = new ConcurrentSkipListSet<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        void add(NewsKey key) {
+            if (keys.add(key)) {
+                size.incrementAndGet();
+            }
+        }
+
+        void remove(NewsKey key) {
+            if (keys.remove(key)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class Doc {
+        private final NewsKey key;
+        private final News news;
+        private final Set<String> exact;
+        private final Set<String> folded;
+
+        Doc(NewsKey key, News news, Set<String> exact, Set<String> folded) {
+            this.key = key;
+            this.news = news;
+            this.exact = exact;
+            this.folded = folded;
+        }
+    }
+
+    private static final class PeekingIterator {
+        private final Iterator<NewsKey> iterator;
+        private NewsKey head;
+
+        PeekingIterator(Iterator<NewsKey> iterator) {
+            this.iterator = iterator;
+            advance();
+        }
+
+        NewsKey peek() {
+            return head;
+        }
+
+        void advance() {
+            head = iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.model.Alert;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import com.crawl.chungkhoan.model.User;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Lưu bền InMemoryStorage: mọi thay đổi được ghi vào write-ahead log (CRC, group-commit fsync),
+ * định kỳ chụp snapshot gọn rồi xóa các segment log đã nằm trong snapshot
+ * Khởi động: nạp snapshot mới nhất rồi replay phần log sau nó (đọc qua memory-map)
+ *
+ * Snapshot là "fuzzy": chuyển log sang segment mới rồi mới duyệt dữ liệu, thay đổi xảy ra trong lúc duyệt
+ * nằm ở segment mới và được replay lại (PUT / DELETE idempotent) nên chỉ dừng ghi trong lúc chuyển segment
+ * Tắt mặc định (storage.persistence.enabled): bật thì dữ liệu nằm trong storage.persistence.dir
+ */
+@Slf4j
+@Component
+public class StoragePersistence {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    @Value("${storage.persistence.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.persistence.dir:data}")
+    private String directory;
+
+    @Value("${storage.persistence.sync-writes:true}")
+    private boolean syncWrites;
+
+    @Value("${storage.persistence.snapshot-min-records:1000}")
+    private long snapshotMinRecords;
+
+    @Value("${storage.persistence.snapshot-on-shutdown:true}")
+    private boolean snapshotOnShutdown;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            // Đọc / ghi thẳng field: bỏ qua các getter tính toán (vd. User.getAuthorities)
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+    private Path dir;
+    private WriteAheadLog wal;
+    private InMemoryStorage storage;
+
+    // Số record đã ghi vào WAL tính đến lần snapshot gần nhất
+    private volatile long recordsAtSnapshot;
+    private volatile long lastSnapshotSegment;
+
+    /**
+     * Khôi phục dữ liệu vào storage rồi mở WAL để ghi tiếp
+     * @return true nếu có dữ liệu được khôi phục (không cần tạo dữ liệu mặc định)
+     */
+    synchronized boolean recover(InMemoryStorage storage) {
+        this.storage = storage;
+        if (!enabled) {
+            log.info("Storage persistence disabled - data will be lost on restart");
+            return false;
+        }
+
+        long startedAt = System.currentTimeMillis();
+        try {
+            dir = Paths.get(directory).toAbsolutePath();
+            Files.createDirectories(dir);
+            deleteTempFiles();
+
+            long snapshotSeq = latestSnapshot();
+            long[] applied = {0};
+            if (snapshotSeq > 0) {
+                Path snapshot = snapshotPath(snapshotSeq);
+                boolean complete = WriteAheadLog.readFrames(snapshot, payload -> {
+                    storage.apply(decode(payload));
+                    applied[0]++;
+                }, false);
+                if (!complete) {
+                    // Snapshot được ghi ra file tạm rồi rename nên không thể dở dang: hỏng thật, không tự bỏ qua
+                    throw new IOException("Corrupt snapshot " + snapshot);
+                }
+            }
+
+            List<Long> segments = WriteAheadLog.segments(dir);
+            segments.removeIf(seq -> seq < snapshotSeq);
+            for (int i = 0; i < segments.size(); i++) {
+                boolean last = i == segments.size() - 1;
+                Path segment = WriteAheadLog.segmentPath(dir, segments.get(i));
+                boolean complete = WriteAheadLog.readFrames(segment, payload -> {
+                    storage.apply(decode(payload));
+                    applied[0]++;
+                }, last);
+                if (!complete && !last) {
+                    log.error("{}: records after the corrupt entry were lost", segment.getFileName());
+                }
+            }
+
+            long current = segments.isEmpty() ? Math.max(snapshotSeq, 1) : segments.get(segments.size() - 1);
+            wal = new WriteAheadLog(dir, current);
+            lastSnapshotSegment = snapshotSeq;
+
+            boolean recovered = snapshotSeq > 0 || applied[0] > 0;
+            log.info("Storage recovered {} records (snapshot {}, {} log segments) from {} in {} ms",
+                    applied[0], snapshotSeq, segments.size(), dir, System.currentTimeMillis() - startedAt);
+            return recovered;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover storage from " + directory, e);
+        }
+    }
+
+    /**
+     * Ghi thay đổi vào WAL (mã hóa ngay để chụp đúng trạng thái lúc gọi)
+     * Caller giữ khóa theo id để thứ tự trong log trùng thứ tự áp dụng; chờ fsync bằng await() ngoài khóa
+     */
+    CompletableFuture<Long> append(StorageRecord record) {
+        if (wal == null) {
+            return CompletableFuture.completedFuture(0L);
+        }
+        return wal.append(encode(record));
+    }
+
+    /**
+     * Chờ record được fsync (nếu bật sync-writes)
+     * @throws IllegalStateException nếu không ghi được record: thay đổi chưa được áp dụng
+     */
+    void await(CompletableFuture<Long> logged) {
+        // Không chờ fsync nhưng log đã dừng vì lỗi thì vẫn báo lỗi
+        if (!syncWrites && !logged.isCompletedExceptionally()) {
+            return;
+        }
+        try {
+            logged.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Could not persist change: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Chụp snapshot định kỳ khi log đã có đủ số record mới
+     */
+    @Scheduled(fixedDelayString = "#{${storage.persistence.snapshot-interval-minutes:10} * 60000}",
+            initialDelayString = "#{${storage.persistence.snapshot-interval-minutes:10} * 60000}")
+    public void snapshotIfDue() {
+        if (wal == null || wal.recordCount() - recordsAtSnapshot < snapshotMinRecords) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Storage snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Chụp snapshot: chuyển log sang segment mới, ghi toàn bộ dữ liệu ra file tạm, fsync, rename,
+     * rồi xóa snapshot cũ và các segment trước segment mới
+     */
+    public synchronized void snapshot() throws IOException {
+        if (wal == null) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        long recordCount = wal.recordCount();
+        // Chuyển segment khi giữ mọi khóa ghi: record nào nằm ở segment cũ cũng đã được áp dụng vào storage
+        long seq = storage.withAllWriteLocks(() -> wal.roll().join());
+
+        Path target = snapshotPath(seq);
+        Path temp = dir.resolve(target.getFileName() + ".tmp");
+        long[] written = {0};
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            CRC32 crc = new CRC32();
+            try {
+                storage.forEachRecord(record -> {
+                    try {
+                        byte[] payload = encode(record);
+                        crc.reset();
+                        crc.update(payload);
+                        out.writeInt(payload.length);
+                        out.writeInt((int) crc.getValue());
+                        out.write(payload);
+                        written[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+
+        // Snapshot mới đã bền: xóa những gì nó thay thế
+        for (long segment : WriteAheadLog.segments(dir)) {
+            if (segment < seq) {
+                Files.deleteIfExists(WriteAheadLog.segmentPath(dir, segment));
+            }
+        }
+        if (lastSnapshotSegment > 0 && lastSnapshotSegment != seq) {
+            Files.deleteIfExists(snapshotPath(lastSnapshotSegment));
+        }
+        lastSnapshotSegment = seq;
+        recordsAtSnapshot = recordCount;
+
+        log.info("Storage snapshot {} written: {} records, {} KB in {} ms", seq, written[0],
+                Files.size(target) / 1024, System.currentTimeMillis() - startedAt);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        if (wal != null) {
+            stats.put("dir", dir.toString());
+            stats.put("syncWrites", syncWrites);
+            stats.put("records", wal.recordCount());
+            stats.put("syncs", wal.syncCount());
+            stats.put("bytes", wal.byteCount());
+            stats.put("recordsSinceSnapshot", wal.recordCount() - recordsAtSnapshot);
+            stats.put("lastSnapshot", lastSnapshotSegment);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (wal == null) {
+            return;
+        }
+        if (snapshotOnShutdown && wal.recordCount() > recordsAtSnapshot) {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                log.error("Storage snapshot on shutdown failed: {}", e.getMessage());
+            }
+        }
+        wal.close();
+    }
+
+    private byte[] encode(StorageRecord record) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("op", record.op.name());
+        if (record.kind != null) {
+            node.put("kind", record.kind.name());
+        }
+        if (record.entity != null) {
+            node.set("data", mapper.valueToTree(record.entity));
+        }
+        if (record.id != null) {
+            node.put("id", record.id);
+        }
+        if (record.counters != null) {
+            node.set("counters", mapper.valueToTree(record.counters));
+        }
+        try {
+            return mapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private StorageRecord decode(byte[] payload) {
+        try {
+            JsonNode node = mapper.readTree(payload);
+            StorageRecord.Op op = StorageRecord.Op.valueOf(node.get("op").asText());
+            return switch (op) {
+                case PUT -> {
+                    StorageRecord.Kind kind = StorageRecord.Kind.valueOf(node.get("kind").asText());
+                    yield StorageRecord.put(kind, mapper.treeToValue(node.get("data"), entityClass(kind)));
+                }
+                case DELETE -> StorageRecord.delete(StorageRecord.Kind.valueOf(node.get("kind").asText()),
+                        node.get("id").asLong());
+                case COUNTERS -> StorageRecord.counters(mapper.convertValue(node.get("counters"),
+                        new TypeReference<Map<String, Long>>() {
+                        }));
+                case CLEAR -> StorageRecord.clear();
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Class<?> entityClass(StorageRecord.Kind kind) {
+        return switch (kind) {
+            case USER -> User.class;
+            case NEWS -> News.class;
+            case ALERT -> Alert.class;
+            case SOURCE -> CrawlSource.class;
+        };
+    }
+
+    private long latestSnapshot() throws IOException {
+        long latest = 0;
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String name = path.getFileName().toString();
+                if (name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX)) {
+                    try {
+                        latest = Math.max(latest, Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(),
+                                name.length() - SNAPSHOT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        log.warn("Ignoring unexpected file {}", name);
+                    }
+                }
+            }
+        }
+        return latest;
+    }
+
+    private Path snapshotPath(long seq) {
+        return dir.resolve(SNAPSHOT_PREFIX + String.format("%012d", seq) + SNAPSHOT_SUFFIX);
+    }
+
+    private void deleteTempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                if (path.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * fsync thư mục để rename của snapshot bền (không hỗ trợ trên một số hệ điều hành)
+     */
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Directory fsync not supported: {}", e.getMessage());
+        }
+    }
+}
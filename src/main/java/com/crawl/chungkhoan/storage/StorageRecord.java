@@ -0,0 +1,48 @@
+package com.crawl.chungkhoan.storage;
+
+import java.util.Map;
+
+/**
+ * Một thay đổi của InMemoryStorage, đơn vị ghi trong WAL và snapshot
+ * PUT mang trạng thái đầy đủ của entity, DELETE chỉ mang id: replay lại nhiều lần vẫn cho cùng kết quả
+ */
+final class StorageRecord {
+
+    enum Op {
+        PUT, DELETE, CLEAR, COUNTERS
+    }
+
+    enum Kind {
+        USER, NEWS, ALERT, SOURCE
+    }
+
+    final Op op;
+    final Kind kind;
+    final Object entity;
+    final Long id;
+    final Map<String, Long> counters;
+
+    private StorageRecord(Op op, Kind kind, Object entity, Long id, Map<String, Long> counters) {
+        this.op = op;
+        this.kind = kind;
+        this.entity = entity;
+        this.id = id;
+        this.counters = counters;
+    }
+
+    static StorageRecord put(Kind kind, Object entity) {
+        return new StorageRecord(Op.PUT, kind, entity, null, null);
+    }
+
+    static StorageRecord delete(Kind kind, Long id) {
+        return new StorageRecord(Op.DELETE, kind, null, id, null);
+    }
+
+    static StorageRecord clear() {
+        return new StorageRecord(Op.CLEAR, null, null, null, null);
+    }
+
+    static StorageRecord counters(Map<String, Long> counters) {
+        return new StorageRecord(Op.COUNTERS, null, null, null, counters);
+    }
+}
@@ -0,0 +1,178 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.dto.TickSummary;
+import com.crawl.chungkhoan.dto.TickWindow;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lưu tick giá trong ngày theo mã, mỗi mã là một ring buffer mảng nguyên thủy
+ * (long thời gian, double giá, long khối lượng) dung lượng cố định:
+ * không boxing, không tạo object cho mỗi tick, heap phẳng theo số mã
+ */
+@Slf4j
+@Component
+public class TickStore {
+
+    // Giờ Việt Nam cố định UTC+7, không có DST
+    private static final long MARKET_OFFSET_MILLIS = 7 * 60 * 60 * 1000L;
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    @Value("${market.ticks.capacity:4096}")
+    private int capacity;
+
+    // Map: symbol -> ring buffer
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    /**
+     * Ghi một quan sát; bỏ qua nếu giá và khối lượng không đổi so với tick trước
+     */
+    public void record(String symbol, long timeMillis, double price, long volume) {
+        series.computeIfAbsent(symbol, s -> new Series(capacity)).add(timeMillis, price, volume);
+    }
+
+    public Set<String> symbols() {
+        return series.keySet();
+    }
+
+    /**
+     * Quote mới nhất và thay đổi so với giá mở cửa, null nếu chưa có tick
+     */
+    public TickSummary latest(String symbol) {
+        Series s = series.get(symbol);
+        return s != null ? s.summary(symbol) : null;
+    }
+
+    /**
+     * Các tick trong khoảng [fromMillis, toMillis], null nếu chưa có tick
+     */
+    public TickWindow window(String symbol, long fromMillis, long toMillis) {
+        Series s = series.get(symbol);
+        return s != null ? s.window(symbol, fromMillis, toMillis) : null;
+    }
+
+    /**
+     * Thay đổi giá so với tick đầu tiên trong ngày, NaN nếu chưa có tick
+     */
+    public double changeSinceOpen(String symbol) {
+        Series s = series.get(symbol);
+        return s != null ? s.changeSinceOpen() : Double.NaN;
+    }
+
+    private static long epochDay(long timeMillis) {
+        return Math.floorDiv(timeMillis + MARKET_OFFSET_MILLIS, DAY_MILLIS);
+    }
+
+    /**
+     * Ring buffer của một mã, ghi đè tick cũ nhất khi đầy
+     */
+    private static class Series {
+        private final long[] times;
+        private final double[] prices;
+        private final long[] volumes;
+
+        private int head; // vị trí ghi tiếp theo
+        private int size;
+
+        private long openDay = Long.MIN_VALUE;
+        private double openPrice;
+
+        Series(int capacity) {
+            times = new long[capacity];
+            prices = new double[capacity];
+            volumes = new long[capacity];
+        }
+
+        synchronized void add(long timeMillis, double price, long volume) {
+            long day = epochDay(timeMillis);
+            if (day != openDay) {
+                // Tick đầu tiên trong ngày là giá mở cửa
+                openDay = day;
+                openPrice = price;
+            } else if (size > 0) {
+                int last = index(size - 1);
+                if (prices[last] == price && volumes[last] == volume) {
+                    return;
+                }
+            }
+
+            times[head] = timeMillis;
+            prices[head] = price;
+            volumes[head] = volume;
+            head = (head + 1) % times.length;
+            if (size < times.length) {
+                size++;
+            }
+        }
+
+        synchronized TickSummary summary(String symbol) {
+            if (size == 0) {
+                return null;
+            }
+            int last = index(size - 1);
+            double change = prices[last] - openPrice;
+            return TickSummary.builder()
+                    .symbol(symbol)
+                    .time(times[last])
+                    .price(prices[last])
+                    .volume(volumes[last])
+                    .openPrice(openPrice)
+                    .changeSinceOpen(change)
+                    .changePercentSinceOpen(openPrice != 0 ? change / openPrice * 100 : 0)
+                    .build();
+        }
+
+        synchronized TickWindow window(String symbol, long fromMillis, long toMillis) {
+            // Tick theo thứ tự thời gian, tìm nhị phân vị trí đầu tiên >= fromMillis
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (times[index(mid)] < fromMillis) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int end = lo;
+            while (end < size && times[index(end)] <= toMillis) {
+                end++;
+            }
+
+            int count = end - lo;
+            long[] windowTimes = new long[count];
+            double[] windowPrices = new double[count];
+            long[] windowVolumes = new long[count];
+            for (int i = 0; i < count; i++) {
+                int idx = index(lo + i);
+                windowTimes[i] = times[idx];
+                windowPrices[i] = prices[idx];
+                windowVolumes[i] = volumes[idx];
+            }
+
+            return TickWindow.builder()
+                    .symbol(symbol)
+                    .times(windowTimes)
+                    .prices(windowPrices)
+                    .volumes(windowVolumes)
+                    .build();
+        }
+
+        synchronized double changeSinceOpen() {
+            return size == 0 ? Double.NaN : prices[index(size - 1)] - openPrice;
+        }
+
+        /**
+         * Vị trí trong mảng của tick thứ i (0 = cũ nhất)
+         */
+        private int index(int i) {
+            int oldest = size < times.length ? 0 : head;
+            return (oldest + i) % times.length;
+        }
+    }
+}
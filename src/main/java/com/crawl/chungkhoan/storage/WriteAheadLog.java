@@ -0,0 +1,338 @@
+package com.crawl.chungkhoan.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log chia segment (wal-<seq>.log), mỗi record: [int độ dài][int CRC32][payload]
+ * Một luồng ghi duy nhất gom mọi record đang chờ, ghi một lần rồi fsync một lần cho cả nhóm (group commit)
+ * Ghi hoặc fsync lỗi một lần thì log dừng hẳn (fail-stop): sau fsync lỗi không biết phần nào đã xuống đĩa,
+ * mọi record sau đó bị từ chối thay vì ghi tiếp lên một file không còn tin được
+ */
+@Slf4j
+class WriteAheadLog implements Closeable {
+
+    static final int HEADER_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_BATCH = 4096;
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    private final Path dir;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile Exception failure;
+
+    // Chỉ luồng ghi truy cập sau khi khởi tạo
+    private FileChannel channel;
+    private long segment;
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Mở segment seq để ghi tiếp (tạo mới nếu chưa có)
+     */
+    WriteAheadLog(Path dir, long segment) throws IOException {
+        this.dir = dir;
+        this.segment = segment;
+        this.channel = open(segment);
+
+        writer = new Thread(this::run, "wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Đưa record vào hàng đợi ghi; future hoàn thành khi record đã được fsync
+     */
+    CompletableFuture<Long> append(byte[] payload) {
+        if (payload.length > MAX_RECORD_BYTES) {
+            return CompletableFuture.failedFuture(new IOException("Record too large: " + payload.length + " bytes"));
+        }
+        return enqueue(new Pending(payload));
+    }
+
+    /**
+     * Chuyển sang segment mới; record append sau lời gọi này nằm ở segment mới
+     * @return future trả về số của segment mới
+     */
+    CompletableFuture<Long> roll() {
+        return enqueue(new Pending(null));
+    }
+
+    long recordCount() {
+        return records.sum();
+    }
+
+    long syncCount() {
+        return syncs.sum();
+    }
+
+    long byteCount() {
+        return bytes.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error closing write-ahead log: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Lỗi làm log dừng, null nếu log còn ghi được
+     */
+    Exception failure() {
+        return failure;
+    }
+
+    private CompletableFuture<Long> enqueue(Pending pending) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IOException("Write-ahead log is closed"));
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(new IOException("Write-ahead log failed: " + failure.getMessage(), failure));
+        }
+        queue.add(pending);
+        return pending.done;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Ghi cả nhóm rồi fsync một lần; lệnh roll ở giữa nhóm fsync segment cũ trước khi chuyển
+     */
+    private void writeBatch(List<Pending> batch) {
+        if (failure != null) {
+            IOException rejected = new IOException("Write-ahead log failed: " + failure.getMessage(), failure);
+            batch.forEach(pending -> pending.done.completeExceptionally(rejected));
+            return;
+        }
+        List<Pending> written = new ArrayList<>(batch.size());
+        try {
+            int start = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                if (pending.payload == null) {
+                    write(batch, start, i, written);
+                    sync(written);
+
+                    channel.close();
+                    channel = open(++segment);
+                    pending.done.complete(segment);
+                    start = i + 1;
+                }
+            }
+            write(batch, start, batch.size(), written);
+            sync(written);
+        } catch (IOException | RuntimeException e) {
+            log.error("Write-ahead log write failed, rejecting further writes: {}", e.getMessage());
+            failure = e;
+            for (Pending pending : batch) {
+                pending.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Ghi các record [from, to) bằng một gathering write; lỗi giữa chừng thì cắt bỏ phần đã ghi dở
+     */
+    private void write(List<Pending> batch, int from, int to, List<Pending> written) throws IOException {
+        if (from >= to) {
+            return;
+        }
+        ByteBuffer[] buffers = new ByteBuffer[(to - from) * 2];
+        long size = 0;
+        CRC32 crc = new CRC32();
+        for (int i = from; i < to; i++) {
+            byte[] payload = batch.get(i).payload;
+            crc.reset();
+            crc.update(payload);
+            buffers[(i - from) * 2] = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(payload.length)
+                    .putInt((int) crc.getValue())
+                    .flip();
+            buffers[(i - from) * 2 + 1] = ByteBuffer.wrap(payload);
+            size += HEADER_BYTES + payload.length;
+        }
+
+        long mark = channel.size();
+        try {
+            long remaining = size;
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+        } catch (IOException e) {
+            channel.truncate(mark);
+            throw e;
+        }
+
+        written.addAll(batch.subList(from, to));
+        records.add(to - from);
+        bytes.add(size);
+    }
+
+    private void sync(List<Pending> written) throws IOException {
+        if (written.isEmpty()) {
+            return;
+        }
+        channel.force(false);
+        syncs.increment();
+        for (Pending pending : written) {
+            pending.done.complete(segment);
+        }
+        written.clear();
+    }
+
+    private FileChannel open(long seq) throws IOException {
+        return FileChannel.open(segmentPath(dir, seq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    static Path segmentPath(Path dir, long seq) {
+        return dir.resolve(SEGMENT_PREFIX + String.format("%012d", seq) + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Các segment có trong thư mục, tăng dần theo số
+     */
+    static List<Long> segments(Path dir) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .forEach(name -> {
+                        try {
+                            result.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                                    name.length() - SEGMENT_SUFFIX.length())));
+                        } catch (NumberFormatException e) {
+                            log.warn("Ignoring unexpected file {}", name);
+                        }
+                    });
+        }
+        result.sort(null);
+        return result;
+    }
+
+    /**
+     * Đọc lần lượt các record hợp lệ của file qua memory-map (từng cửa sổ, file lớn không cần map một lần)
+     * Dừng ở record đầu tiên bị cắt dở hoặc sai CRC
+     * @param truncateTail cắt bỏ phần hỏng ở cuối (segment cuối sau crash) để ghi tiếp được
+     * @return true nếu đọc hết file không gặp lỗi
+     */
+    static boolean readFrames(Path file, Consumer<byte[]> consumer, boolean truncateTail) throws IOException {
+        try (FileChannel channel = truncateTail
+                ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long offset = 0;
+            MappedByteBuffer buffer = null;
+            long bufferStart = 0;
+            CRC32 crc = new CRC32();
+
+            while (offset + HEADER_BYTES <= size) {
+                if (buffer == null || offset + HEADER_BYTES > bufferStart + buffer.limit()) {
+                    buffer = map(channel, offset, size, HEADER_BYTES);
+                    bufferStart = offset;
+                }
+                int at = (int) (offset - bufferStart);
+                int length = buffer.getInt(at);
+                int checksum = buffer.getInt(at + 4);
+                if (length < 0 || length > MAX_RECORD_BYTES || offset + HEADER_BYTES + length > size) {
+                    break;
+                }
+                if (offset + HEADER_BYTES + length > bufferStart + buffer.limit()) {
+                    buffer = map(channel, offset, size, HEADER_BYTES + length);
+                    bufferStart = offset;
+                    at = 0;
+                }
+
+                byte[] payload = new byte[length];
+                buffer.get(at + HEADER_BYTES, payload);
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                consumer.accept(payload);
+                offset += HEADER_BYTES + length;
+            }
+
+            if (offset == size) {
+                return true;
+            }
+            log.warn("{}: invalid record at offset {} of {} bytes", file.getFileName(), offset, size);
+            if (truncateTail) {
+                channel.truncate(offset);
+                log.warn("{}: truncated torn tail", file.getFileName());
+            }
+            return false;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, long size, int minLength) throws IOException {
+        long length = Math.min(size - offset, Math.max(MAP_WINDOW, minLength));
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    /**
+     * Record chờ ghi; payload = null là lệnh chuyển segment
+     */
+    private static class Pending {
+        private final byte[] payload;
+        private final CompletableFuture<Long> done = new CompletableFuture<>();
+
+        Pending(byte[] payload) {
+            this.payload = payload;
+        }
+    }
+}
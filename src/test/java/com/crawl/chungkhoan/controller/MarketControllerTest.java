@@ -0,0 +1,73 @@
+package com.crawl.chungkhoan.controller;
+
+import com.crawl.chungkhoan.dto.MarketSnapshot;
+import com.crawl.chungkhoan.service.MarketSnapshotService;
+import com.crawl.chungkhoan.service.MarketStreamService;
+import com.crawl.chungkhoan.storage.TickStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class MarketControllerTest {
+
+    private static final String ETAG = "\"bonds-0123456789abcdef0123456789abcdef\"";
+
+    private final MarketSnapshotService marketSnapshotService = mock(MarketSnapshotService.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MarketController controller = new MarketController(marketSnapshotService, mock(MarketStreamService.class),
+                mock(TickStore.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        when(marketSnapshotService.get(MarketSnapshotService.BONDS)).thenReturn(MarketSnapshot.builder()
+                .type(MarketSnapshotService.BONDS)
+                .data(List.of(Map.of("name", "bond")))
+                .asOf(LocalDateTime.of(2024, 5, 2, 9, 15))
+                .etag(ETAG)
+                .build());
+        when(marketSnapshotService.remainingFreshSeconds(any())).thenReturn(10L);
+        when(marketSnapshotService.getMaxStaleSeconds()).thenReturn(600L);
+    }
+
+    @Test
+    void servesSnapshotWithEtag() throws Exception {
+        mockMvc.perform(get("/api/market/bonds"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETAG))
+                .andExpect(jsonPath("$.count").value(1));
+    }
+
+    @Test
+    void matchingStrongWeakListAndWildcardTagsAreNotModified() throws Exception {
+        for (String ifNoneMatch : List.of(ETAG, "W/" + ETAG, "\"other\", " + ETAG, "*")) {
+            mockMvc.perform(get("/api/market/bonds").header("If-None-Match", ifNoneMatch))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", ETAG))
+                    .andExpect(header().exists("Cache-Control"))
+                    .andExpect(content().string(""));
+        }
+    }
+
+    @Test
+    void staleTagGetsFullResponse() throws Exception {
+        mockMvc.perform(get("/api/market/bonds").header("If-None-Match", "\"bonds-old\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.asOf").exists());
+    }
+}
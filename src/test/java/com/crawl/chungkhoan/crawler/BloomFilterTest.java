@@ -0,0 +1,51 @@
+package com.crawl.chungkhoan.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverForgetsInsertedValues() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("https://example.com/tin-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("https://example.com/tin-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearConfiguredRateAtCapacity() {
+        int expected = 50_000;
+        double rate = 0.01;
+        BloomFilter filter = new BloomFilter(expected, rate);
+        for (int i = 0; i < expected; i++) {
+            filter.put("https://example.com/tin-" + i);
+        }
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("https://other.example.org/bai-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Sai số lấy mẫu với 100k lần thử nhỏ hơn nhiều so với biên 1.5x
+        assertThat((double) falsePositives / probes).isLessThan(rate * 1.5);
+    }
+
+    @Test
+    void putReportsWhetherValueWasNew() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+
+        assertThat(filter.put("https://example.com/a")).isTrue();
+        assertThat(filter.put("https://example.com/a")).isFalse();
+        assertThat(filter.approximateInsertions()).isEqualTo(1);
+        assertThat(filter.sizeInBytes()).isGreaterThanOrEqualTo((long) Math.ceil(1_000 * 9.585 / 8));
+    }
+}
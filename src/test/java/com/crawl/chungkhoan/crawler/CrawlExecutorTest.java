@@ -0,0 +1,119 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.CrawlSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrawlExecutorTest {
+
+    private CrawlExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void sameHostNeverExceedsPerHostLimit() {
+        executor = executor(4, 2, 10);
+        ConcurrencyProbe probe = new ConcurrencyProbe();
+
+        int completed = executor.runAll(sources("https://cafef.vn", 8), probe);
+
+        assertThat(completed).isEqualTo(8);
+        assertThat(probe.peak.get()).isEqualTo(2);
+    }
+
+    @Test
+    void manyHostsNeverExceedTotalLimit() {
+        executor = executor(3, 2, 10);
+        ConcurrencyProbe probe = new ConcurrencyProbe();
+        List<CrawlSource> sources = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            sources.addAll(sources("https://host" + i + ".vn", 1));
+        }
+
+        int completed = executor.runAll(sources, probe);
+
+        assertThat(completed).isEqualTo(6);
+        assertThat(probe.peak.get()).isEqualTo(3);
+    }
+
+    @Test
+    void runAllReturnsAtDeadlineWhileSourceHangs() throws InterruptedException {
+        executor = executor(2, 1, 1);
+        CountDownLatch never = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<CrawlSource> sources = new ArrayList<>(sources("https://treo.vn", 1));
+        sources.addAll(sources("https://nhanh.vn", 1));
+
+        long started = System.nanoTime();
+        int completed = executor.runAll(sources, source -> {
+            if (source.getUrl().startsWith("https://treo.vn")) {
+                try {
+                    never.await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        });
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(completed).isEqualTo(1);
+        assertThat(elapsedMs).isBetween(900L, 3000L);
+        // Source treo bị hủy (interrupt) khi hết deadline
+        assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static CrawlExecutor executor(int maxConcurrency, int perHost, long deadlineSeconds) {
+        CrawlExecutor executor = new CrawlExecutor();
+        ReflectionTestUtils.setField(executor, "parallelEnabled", true);
+        ReflectionTestUtils.setField(executor, "maxConcurrency", maxConcurrency);
+        ReflectionTestUtils.setField(executor, "perHostConcurrency", perHost);
+        ReflectionTestUtils.setField(executor, "deadlineSeconds", deadlineSeconds);
+        executor.init();
+        return executor;
+    }
+
+    private static List<CrawlSource> sources(String host, int count) {
+        List<CrawlSource> sources = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            sources.add(CrawlSource.builder().name(host + "#" + i).url(host + "/tin-" + i).build());
+        }
+        return sources;
+    }
+
+    /**
+     * Task giữ luồng một lúc và ghi lại số task chạy cùng lúc lớn nhất
+     */
+    private static class ConcurrencyProbe implements Consumer<CrawlSource> {
+
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+
+        @Override
+        public void accept(CrawlSource source) {
+            int now = running.incrementAndGet();
+            peak.accumulateAndGet(now, Math::max);
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+    }
+}
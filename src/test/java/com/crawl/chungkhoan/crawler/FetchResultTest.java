@@ -0,0 +1,91 @@
+package com.crawl.chungkhoan.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FetchResultTest {
+
+    private static final String TITLE = "Cổ phiếu tăng điểm";
+    private static final String BASE_URI = "https://example.com/";
+
+    @Test
+    void headerCharsetWins() throws IOException {
+        byte[] body = html("<meta charset=\"utf-8\">", Charset.forName("windows-1258"));
+        FetchResult page = FetchResult.fetched(body, "windows-1258", BASE_URI);
+
+        assertThat(page.resolveCharset()).isEqualTo(Charset.forName("windows-1258"));
+        assertConsistent(page);
+    }
+
+    @Test
+    void bomUsedWithoutHeader() throws IOException {
+        byte[] html = html("", StandardCharsets.UTF_16LE);
+        byte[] body = new byte[html.length + 2];
+        body[0] = (byte) 0xFF;
+        body[1] = (byte) 0xFE;
+        System.arraycopy(html, 0, body, 2, html.length);
+        FetchResult page = FetchResult.fetched(body, null, BASE_URI);
+
+        assertThat(page.resolveCharset()).isEqualTo(StandardCharsets.UTF_16LE);
+        assertThat(read(page)).startsWith("<html>");
+        assertConsistent(page);
+    }
+
+    @Test
+    void metaCharsetSniffedWithoutHeaderOrBom() throws IOException {
+        byte[] body = html("<meta http-equiv=\"Content-Type\" content=\"text/html; charset=ISO-8859-1\">",
+                StandardCharsets.ISO_8859_1);
+        FetchResult page = FetchResult.fetched(body, null, BASE_URI);
+
+        assertThat(page.resolveCharset()).isEqualTo(StandardCharsets.ISO_8859_1);
+        assertConsistent(page);
+    }
+
+    @Test
+    void defaultsToUtf8() throws IOException {
+        FetchResult page = FetchResult.fetched(html("", StandardCharsets.UTF_8), null, BASE_URI);
+
+        assertThat(page.resolveCharset()).isEqualTo(StandardCharsets.UTF_8);
+        assertThat(page.parse().title()).isEqualTo(TITLE);
+        assertConsistent(page);
+    }
+
+    @Test
+    void unknownCharsetNamesIgnored() {
+        byte[] body = html("<meta charset=\"x-unknown-charset\">", StandardCharsets.UTF_8);
+        FetchResult page = FetchResult.fetched(body, "not a charset", BASE_URI);
+
+        assertThat(page.resolveCharset()).isEqualTo(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * DOM dựng từ parse() và từ reader() phải giống nhau
+     */
+    private static void assertConsistent(FetchResult page) throws IOException {
+        assertThat(page.parse().title()).isEqualTo(
+                org.jsoup.parser.Parser.htmlParser().parseInput(read(page), BASE_URI).title());
+    }
+
+    private static String read(FetchResult page) throws IOException {
+        StringBuilder text = new StringBuilder();
+        try (Reader reader = page.reader()) {
+            char[] buffer = new char[1024];
+            int n;
+            while ((n = reader.read(buffer)) > 0) {
+                text.append(buffer, 0, n);
+            }
+        }
+        return text.toString();
+    }
+
+    private static byte[] html(String head, Charset charset) {
+        String title = charset.newEncoder().canEncode(TITLE) ? TITLE : "Co phieu";
+        return ("<html><head>" + head + "<title>" + title + "</title></head><body></body></html>").getBytes(charset);
+    }
+}
@@ -0,0 +1,79 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NewsExtractorTest {
+
+    private static final String PAGE = "<html><head><meta charset=\"utf-8\"></head><body>"
+            + "<article><h3><a href=\"/a\">Thị trường chứng khoán</a></h3><p class=\"sapo\">Mô tả</p>"
+            + "<time datetime=\"2024-05-01T09:30:00+07:00\"></time></article>"
+            + "<article><h3><a href=\"/b\">Bài thứ hai</a></h3></article>"
+            + "<article><h3><a href=\"javascript:void(0)\">Không hợp lệ</a></h3></article>"
+            + "<article><h3><a href=\"/c\">Bài thứ ba</a></h3></article>"
+            + "</body></html>";
+
+    private final CrawlSource source = CrawlSource.builder().name("test").url("https://example.com/").build();
+
+    @Test
+    void streamingAndDomExtractionAgree() throws IOException {
+        FetchResult page = FetchResult.fetched(PAGE.getBytes(StandardCharsets.UTF_8), null,
+                "https://example.com/");
+
+        List<News> streamed = extractor(true).extract(page, source, 10);
+        List<News> parsed = extractor(false).extract(page, source, 10);
+
+        assertThat(streamed).extracting(News::getTitle)
+                .containsExactly("Thị trường chứng khoán", "Bài thứ hai", "Bài thứ ba");
+        assertThat(parsed).extracting(News::getTitle).isEqualTo(streamed.stream().map(News::getTitle).toList());
+        assertThat(streamed.get(0).getUrl()).isEqualTo("https://example.com/a");
+        assertThat(streamed.get(0).getDescription()).isEqualTo("Mô tả");
+        assertThat(streamed.get(0).getSource()).isEqualTo("TEST");
+        assertThat(streamed.get(0).getUrlHash()).isEqualTo(UrlCanonicalizer.urlHash("https://example.com/a"));
+    }
+
+    @Test
+    void streamingStopsAtLimit() throws IOException {
+        FetchResult page = FetchResult.fetched(PAGE.getBytes(StandardCharsets.UTF_8), "UTF-8",
+                "https://example.com/");
+
+        assertThat(extractor(true).extract(page, source, 2)).extracting(News::getTitle)
+                .containsExactly("Thị trường chứng khoán", "Bài thứ hai");
+    }
+
+    @Test
+    void streamingDecodesSniffedCharset() throws IOException {
+        String html = "<html><head><meta charset=\"ISO-8859-1\"></head><body>"
+                + "<article><h3><a href=\"/d\">Café à Paris</a></h3></article></body></html>";
+        FetchResult page = FetchResult.fetched(html.getBytes(StandardCharsets.ISO_8859_1), null,
+                "https://example.com/");
+
+        assertThat(extractor(true).extract(page, source, 10)).extracting(News::getTitle)
+                .containsExactly("Café à Paris");
+        assertThat(extractor(false).extract(page, source, 10)).extracting(News::getTitle)
+                .containsExactly("Café à Paris");
+    }
+
+    @Test
+    void parsePublishedAtFormats() {
+        assertThat(NewsExtractor.parsePublishedAt("01/05/2024 09:30")).isEqualTo("2024-05-01T09:30");
+        assertThat(NewsExtractor.parsePublishedAt("09:30 01/05/2024")).isEqualTo("2024-05-01T09:30");
+        assertThat(NewsExtractor.parsePublishedAt("01/05/2024")).isEqualTo("2024-05-01T00:00");
+        assertThat(NewsExtractor.parsePublishedAt("không phải ngày")).isNull();
+        assertThat(NewsExtractor.parsePublishedAt(" ")).isNull();
+    }
+
+    private static NewsExtractor extractor(boolean streaming) {
+        NewsExtractor extractor = new NewsExtractor();
+        ReflectionTestUtils.setField(extractor, "streamingExtraction", streaming);
+        return extractor;
+    }
+}
@@ -0,0 +1,112 @@
+package com.crawl.chungkhoan.crawler;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PageFetcherTest {
+
+    private static final String URL = "https://example.com/news";
+
+    private final List<Request> requests = new ArrayList<>();
+    private final FetchValidatorCache validatorCache = new FetchValidatorCache();
+
+    private String body = "<html>v1</html>";
+    private String etag = "\"v1\"";
+    private PageFetcher pageFetcher;
+
+    @BeforeEach
+    void setUp() {
+        // Server giả: trả 304 khi If-None-Match khớp ETag hiện tại
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    Request request = chain.request();
+                    requests.add(request);
+                    Response.Builder response = new Response.Builder()
+                            .request(request)
+                            .protocol(Protocol.HTTP_1_1)
+                            .header("ETag", etag);
+                    if (etag.equals(request.header("If-None-Match"))) {
+                        return response.code(304).message("Not Modified")
+                                .body(ResponseBody.create("", null))
+                                .build();
+                    }
+                    return response.code(200).message("OK")
+                            .body(ResponseBody.create(body, MediaType.get("text/html; charset=utf-8")))
+                            .build();
+                })
+                .build();
+
+        pageFetcher = new PageFetcher(client, validatorCache, new PolitenessManager(client));
+        ReflectionTestUtils.setField(pageFetcher, "userAgent", "test-agent");
+    }
+
+    @Test
+    void validatorsNotStoredUntilCommit() throws IOException {
+        FetchResult first = pageFetcher.fetchIfChanged(URL, "TEST");
+
+        assertThat(first.getStatus()).isEqualTo(FetchResult.Status.FETCHED);
+        assertThat(first.getValidators().getEtag()).isEqualTo("\"v1\"");
+        assertThat(validatorCache.get(URL)).isNull();
+
+        // Lần crawl trước không commit (lỗi parse / escalate): vẫn fetch đầy đủ
+        FetchResult retry = pageFetcher.fetchIfChanged(URL, "TEST");
+        assertThat(retry.getStatus()).isEqualTo(FetchResult.Status.FETCHED);
+        assertThat(requests.get(1).header("If-None-Match")).isNull();
+    }
+
+    @Test
+    void committedValidatorsSentOnNextFetch() throws IOException {
+        pageFetcher.commit(pageFetcher.fetchIfChanged(URL, "TEST"));
+
+        FetchResult second = pageFetcher.fetchIfChanged(URL, "TEST");
+
+        assertThat(requests.get(1).header("If-None-Match")).isEqualTo("\"v1\"");
+        assertThat(second.getStatus()).isEqualTo(FetchResult.Status.NOT_MODIFIED);
+        assertThat(second.isChanged()).isFalse();
+    }
+
+    @Test
+    void sameDigestIsUnchangedAndRefreshesValidators() throws IOException {
+        pageFetcher.commit(pageFetcher.fetchIfChanged(URL, "TEST"));
+        etag = "\"v2\""; // ETag đổi nhưng body giữ nguyên
+
+        FetchResult second = pageFetcher.fetchIfChanged(URL, "TEST");
+
+        assertThat(second.getStatus()).isEqualTo(FetchResult.Status.UNCHANGED);
+        assertThat(validatorCache.get(URL).getEtag()).isEqualTo("\"v2\"");
+    }
+
+    @Test
+    void changedBodyFetchedAgain() throws IOException {
+        pageFetcher.commit(pageFetcher.fetchIfChanged(URL, "TEST"));
+        etag = "\"v2\"";
+        body = "<html>v2</html>";
+
+        FetchResult second = pageFetcher.fetchIfChanged(URL, "TEST");
+
+        assertThat(second.getStatus()).isEqualTo(FetchResult.Status.FETCHED);
+        assertThat(validatorCache.get(URL).getEtag()).isEqualTo("\"v1\"");
+        assertThat(validatorCache.getStats().get("TEST")).containsEntry("fetched", 2L);
+    }
+
+    @Test
+    void commitIgnoresResultsWithoutValidators() {
+        pageFetcher.commit(null);
+        pageFetcher.commit(FetchResult.notModified(URL));
+
+        assertThat(validatorCache.get(URL)).isNull();
+    }
+}
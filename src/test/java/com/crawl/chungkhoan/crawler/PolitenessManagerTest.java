@@ -0,0 +1,212 @@
+package com.crawl.chungkhoan.crawler;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PolitenessManagerTest {
+
+    private static final String HOST = "https://example.com";
+
+    private final AtomicInteger robotsFetches = new AtomicInteger();
+
+    @Test
+    void burstPassesImmediatelyThenWaitsForRefill() throws IOException {
+        PolitenessManager politeness = manager(robots(200, "User-agent: *\nDisallow:"), 10.0, 3);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            politeness.acquire(HOST + "/tin-" + i);
+        }
+        long burstMs = (System.nanoTime() - started) / 1_000_000;
+        politeness.acquire(HOST + "/tin-3");
+
+        assertThat(burstMs).isLessThan(80);
+        // Token thứ 4 phải chờ ~1/10 giây
+        assertThat(totalWaitMs(politeness)).isBetween(50L, 100L);
+    }
+
+    @Test
+    void crawlDelayLowersRateAndDisablesBurst() throws IOException {
+        PolitenessManager politeness = manager(robots(200, "User-agent: *\nCrawl-delay: 0.2"), 10.0, 3);
+
+        politeness.acquire(HOST + "/a");
+        politeness.acquire(HOST + "/b");
+
+        // min(10/s, 1/0.2s) = 5/s, burst 1: request thứ 2 chờ ~200ms
+        assertThat(totalWaitMs(politeness)).isBetween(150L, 200L);
+        assertThat(politeness.getStats().get(HOST).get("crawlDelaySeconds")).isEqualTo(0.2);
+    }
+
+    @Test
+    void configuredRateWinsWhenLowerThanCrawlDelay() throws IOException {
+        PolitenessManager politeness = manager(robots(200, "User-agent: *\nCrawl-delay: 0.05"), 4.0, 3);
+
+        politeness.acquire(HOST + "/a");
+        politeness.acquire(HOST + "/b");
+
+        // min(4/s, 1/0.05s) = 4/s, burst vẫn là 1 vì có Crawl-delay
+        assertThat(totalWaitMs(politeness)).isBetween(200L, 250L);
+    }
+
+    @Test
+    void listingDoesNotQueueBehindDetailBacklog() throws Exception {
+        PolitenessManager politeness = manager(robots(200, "User-agent: *\nDisallow:"), 10.0, 3);
+        Thread detail = new Thread(() -> {
+            try {
+                for (int i = 0; i < 20; i++) {
+                    politeness.acquireBackground(HOST + "/chi-tiet-" + i);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        detail.start();
+        Thread.sleep(300);
+
+        long started = System.nanoTime();
+        politeness.acquire(HOST + "/listing");
+        long listingMs = (System.nanoTime() - started) / 1_000_000;
+        detail.interrupt();
+        detail.join();
+
+        // Detail chỉ dùng token dư ngoài burst - 1 token để dành: listing không phải chờ
+        assertThat(listingMs).isLessThan(50);
+        assertThat(totalWaitMs(politeness)).isZero();
+        assertThat((Long) politeness.getStats().get(HOST).get("backgroundRequests")).isBetween(1L, 6L);
+    }
+
+    @Test
+    void detailUsesFullRateWhenListingIsIdle() throws IOException {
+        PolitenessManager politeness = manager(robots(200, "User-agent: *\nDisallow:"), 20.0, 3);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            politeness.acquireBackground(HOST + "/chi-tiet-" + i);
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        // Token đầu lấy ngay, 4 token sau mỗi token chờ ~1/20 giây
+        assertThat(elapsedMs).isBetween(150L, 400L);
+    }
+
+    @Test
+    void disallowedPathIsRejectedWithoutTakingToken() throws IOException {
+        PolitenessManager politeness = manager(robots(200, "User-agent: *\nDisallow: /private"), 10.0, 3);
+
+        assertThatThrownBy(() -> politeness.acquire(HOST + "/private/report?id=1"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("robots.txt");
+        politeness.acquire(HOST + "/public");
+
+        assertThat(politeness.getStats().get(HOST).get("requests")).isEqualTo(1L);
+    }
+
+    @Test
+    void missingRobotsAllowsAllAndIsCachedForTtl() throws IOException {
+        PolitenessManager politeness = manager(robots(404, "User-agent: *\nDisallow: /"), 100.0, 10);
+
+        politeness.acquire(HOST + "/a");
+        politeness.acquire(HOST + "/b");
+
+        assertThat(robotsFetches).hasValue(1);
+    }
+
+    @Test
+    void serverErrorOnRobotsDisallowsAllUntilRetry() throws Exception {
+        AtomicInteger status = new AtomicInteger(503);
+        PolitenessManager politeness = manager(robots(status, "User-agent: *\nDisallow:"), 100.0, 10);
+
+        assertThatThrownBy(() -> politeness.acquire(HOST + "/a")).hasMessageContaining("robots.txt");
+        assertThatThrownBy(() -> politeness.acquire(HOST + "/b")).hasMessageContaining("robots.txt");
+        assertThat(robotsFetches).hasValue(1);
+
+        // Hết thời gian thử lại, server đã hồi phục
+        ReflectionTestUtils.setField(politeness, "robotsRetrySeconds", 0L);
+        status.set(200);
+        Thread.sleep(5);
+        politeness.acquire(HOST + "/c");
+        assertThat(robotsFetches).hasValue(2);
+    }
+
+    @Test
+    void tooManyRequestsOnRobotsDisallowsAll() {
+        PolitenessManager politeness = manager(robots(429, ""), 100.0, 10);
+
+        assertThatThrownBy(() -> politeness.acquire(HOST + "/a")).hasMessageContaining("robots.txt");
+    }
+
+    @Test
+    void unreachableRobotsDisallowsAll() {
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    robotsFetches.incrementAndGet();
+                    throw new IOException("Connection reset");
+                })
+                .build();
+        PolitenessManager politeness = manager(client, 100.0, 10);
+
+        assertThatThrownBy(() -> politeness.acquire(HOST + "/a")).hasMessageContaining("robots.txt");
+        assertThatThrownBy(() -> politeness.acquire(HOST + "/b")).hasMessageContaining("robots.txt");
+        assertThat(robotsFetches).hasValue(1);
+    }
+
+    @Test
+    void robotsAreReloadedAfterTtl() throws Exception {
+        PolitenessManager politeness = manager(robots(200, "User-agent: *\nDisallow:"), 100.0, 10);
+        ReflectionTestUtils.setField(politeness, "robotsTtlMinutes", 0L);
+
+        politeness.acquire(HOST + "/a");
+        Thread.sleep(5);
+        politeness.acquire(HOST + "/b");
+
+        assertThat(robotsFetches).hasValue(2);
+    }
+
+    private PolitenessManager manager(OkHttpClient client, double requestsPerSecond, int burst) {
+        PolitenessManager politeness = new PolitenessManager(client);
+        ReflectionTestUtils.setField(politeness, "enabled", true);
+        ReflectionTestUtils.setField(politeness, "requestsPerSecond", requestsPerSecond);
+        ReflectionTestUtils.setField(politeness, "burst", burst);
+        ReflectionTestUtils.setField(politeness, "respectRobots", true);
+        ReflectionTestUtils.setField(politeness, "robotsUserAgent", "*");
+        ReflectionTestUtils.setField(politeness, "robotsTtlMinutes", 60L);
+        ReflectionTestUtils.setField(politeness, "robotsRetrySeconds", 60L);
+        ReflectionTestUtils.setField(politeness, "userAgent", "test");
+        return politeness;
+    }
+
+    private OkHttpClient robots(int status, String content) {
+        return robots(new AtomicInteger(status), content);
+    }
+
+    private OkHttpClient robots(AtomicInteger status, String content) {
+        return new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    robotsFetches.incrementAndGet();
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(status.get())
+                            .message("")
+                            .body(ResponseBody.create(content, MediaType.get("text/plain")))
+                            .build();
+                })
+                .build();
+    }
+
+    private static long totalWaitMs(PolitenessManager politeness) {
+        return (Long) politeness.getStats().get(HOST).get("totalWaitMs");
+    }
+}
@@ -0,0 +1,114 @@
+package com.crawl.chungkhoan.crawler;
+
+import com.crawl.chungkhoan.crawler.QuoteParser.NumberStyle;
+import com.crawl.chungkhoan.model.StockQuote;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.text.ParseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class QuoteParserTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "12.500;12500",
+            "1,234;1.234",
+            "78,5;78.5",
+            "1.234.567,89;1234567.89",
+            "0,05;0.05",
+            "+1,2;1.2",
+            "-0,3;-0.3",
+            "−0,3;-0.3",
+            "+1,55%;1.55",
+            "100;100"
+    })
+    void parsesVietnameseSeparators(String text, double expected) throws ParseException {
+        assertThat(QuoteParser.parseDecimal(text, 0, text.length())).isCloseTo(expected, within(1e-9));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = ';', value = {
+            "12.500;12.5",
+            "1,234;1234",
+            "1,234,567.89;1234567.89",
+            "-2.75%;-2.75"
+    })
+    void parsesUsSeparators(String text, double expected) throws ParseException {
+        assertThat(QuoteParser.parseDecimal(text, 0, text.length(), NumberStyle.US))
+                .isCloseTo(expected, within(1e-9));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1,234.5",   // kiểu Mỹ: dấu nghìn sau dấu thập phân
+            "1,2,3",     // hai dấu thập phân
+            "12.50",     // nhóm cuối không đủ 3 chữ số
+            "1234.567",  // nhóm đầu quá 3 chữ số
+            ".500",      // thiếu nhóm đầu
+            "1.23,4",    // nhóm trước dấu thập phân sai
+            ",5",
+            "+",
+            "12a",
+            "1234567890123456789"
+    })
+    void rejectsMalformedVietnameseNumbers(String text) {
+        assertThatThrownBy(() -> QuoteParser.parseDecimal(text, 0, text.length()))
+                .isInstanceOf(ParseException.class);
+    }
+
+    @Test
+    void parsesGroupedVolume() throws ParseException {
+        assertThat(QuoteParser.parseGrouped("1.234.567", 0, 9)).isEqualTo(1_234_567L);
+        assertThat(QuoteParser.parseGrouped("500", 0, 3)).isEqualTo(500L);
+        assertThat(QuoteParser.parseGrouped("1,234,567", 0, 9, NumberStyle.US)).isEqualTo(1_234_567L);
+        assertThatThrownBy(() -> QuoteParser.parseGrouped("1.234,5", 0, 7)).isInstanceOf(ParseException.class);
+        assertThatThrownBy(() -> QuoteParser.parseGrouped("12.34", 0, 5)).isInstanceOf(ParseException.class);
+    }
+
+    @Test
+    void parsesFullRow() throws ParseException {
+        StockQuote quote = QuoteParser.parseRow("VNM Vinamilk 78,5 +1,2 +1,55% 1.234.567");
+
+        assertThat(quote.getSymbol()).isEqualTo("VNM");
+        assertThat(quote.getName()).isEqualTo("Vinamilk");
+        assertThat(quote.getPrice()).isEqualTo(78.5);
+        assertThat(quote.getChange()).isEqualTo(1.2);
+        assertThat(quote.getChangePercent()).isEqualTo(1.55);
+        assertThat(quote.getVolume()).isEqualTo(1_234_567L);
+    }
+
+    @Test
+    void parsesRowWithThousandsPriceAndNoName() throws ParseException {
+        StockQuote quote = QuoteParser.parseRow("FPT 12.500 -0,3 -2,34% 800");
+
+        assertThat(quote.getName()).isEqualTo("FPT");
+        assertThat(quote.getPrice()).isEqualTo(12500);
+        assertThat(quote.getChange()).isEqualTo(-0.3);
+        assertThat(quote.getChangePercent()).isEqualTo(-2.34);
+        assertThat(quote.getVolume()).isEqualTo(800);
+    }
+
+    @Test
+    void parsesRowInUsStyle() throws ParseException {
+        StockQuote quote = QuoteParser.parseRow("AAPL Apple 1,234.5 +2.5 +0.2% 1,000,000", NumberStyle.US);
+
+        assertThat(quote.getPrice()).isEqualTo(1234.5);
+        assertThat(quote.getVolume()).isEqualTo(1_000_000L);
+    }
+
+    @Test
+    void rejectsInvalidRows() {
+        assertThatThrownBy(() -> QuoteParser.parseRow(null)).isInstanceOf(ParseException.class);
+        assertThatThrownBy(() -> QuoteParser.parseRow("vnm 78,5")).isInstanceOf(ParseException.class);
+        assertThatThrownBy(() -> QuoteParser.parseRow("VNM Vinamilk")).isInstanceOf(ParseException.class);
+        assertThatThrownBy(() -> QuoteParser.parseRow("VNM 78,5,1"))
+                .isInstanceOf(ParseException.class)
+                .extracting(e -> ((ParseException) e).getErrorOffset()).isEqualTo(8);
+    }
+}
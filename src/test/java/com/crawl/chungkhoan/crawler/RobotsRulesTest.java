@@ -0,0 +1,107 @@
+package com.crawl.chungkhoan.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RobotsRulesTest {
+
+    @Test
+    void longestMatchingRuleWins() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /tin-tuc/
+                Allow: /tin-tuc/chung-khoan/
+                Disallow: /tin-tuc/chung-khoan/private
+                """, "*");
+
+        assertThat(rules.isAllowed("/tin-tuc/bat-dong-san")).isFalse();
+        assertThat(rules.isAllowed("/tin-tuc/chung-khoan/vn-index")).isTrue();
+        assertThat(rules.isAllowed("/tin-tuc/chung-khoan/private/a")).isFalse();
+        assertThat(rules.isAllowed("/gioi-thieu")).isTrue();
+    }
+
+    @Test
+    void allowWinsTieOfEqualLength() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /page
+                Allow: /page
+                """, "*");
+
+        assertThat(rules.isAllowed("/page/1")).isTrue();
+    }
+
+    @Test
+    void dollarAnchorsToEndOfPath() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /*.pdf$
+                Disallow: /exact$
+                """, "*");
+
+        assertThat(rules.isAllowed("/bao-cao/q1.pdf")).isFalse();
+        assertThat(rules.isAllowed("/bao-cao/q1.pdf?download=1")).isTrue();
+        assertThat(rules.isAllowed("/exact")).isFalse();
+        assertThat(rules.isAllowed("/exact/more")).isTrue();
+    }
+
+    @Test
+    void starMatchesAnySequenceIncludingEmpty() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /*?sort=
+                Disallow: /a**b
+                """, "*");
+
+        assertThat(rules.isAllowed("/tin?sort=desc")).isFalse();
+        assertThat(rules.isAllowed("/?sort=asc")).isFalse();
+        assertThat(rules.isAllowed("/tin?page=2")).isTrue();
+        assertThat(rules.isAllowed("/ab")).isFalse();
+        assertThat(rules.isAllowed("/a/x/y/b")).isFalse();
+        assertThat(rules.isAllowed("/ac")).isTrue();
+    }
+
+    @Test
+    void specificAgentGroupReplacesWildcardGroup() {
+        String content = """
+                User-agent: *
+                Disallow: /
+                Crawl-delay: 10
+
+                User-agent: Googlebot
+                User-agent: ChungKhoanBot
+                Disallow: /admin # chỉ chặn admin
+                Crawl-delay: 2.5
+                """;
+
+        RobotsRules specific = RobotsRules.parse(content, "ChungKhoanBot/1.0");
+        RobotsRules wildcard = RobotsRules.parse(content, "OtherBot");
+
+        assertThat(specific.isAllowed("/tin-tuc")).isTrue();
+        assertThat(specific.isAllowed("/admin/login")).isFalse();
+        assertThat(specific.getCrawlDelaySeconds()).isEqualTo(2.5);
+        assertThat(wildcard.isAllowed("/tin-tuc")).isFalse();
+        assertThat(wildcard.getCrawlDelaySeconds()).isEqualTo(10.0);
+    }
+
+    @Test
+    void emptyDisallowAndInvalidDelayAllowEverything() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow:
+                Crawl-delay: soon
+                Sitemap: https://example.com/sitemap.xml
+                """, "*");
+
+        assertThat(rules.isAllowed("/anything")).isTrue();
+        assertThat(rules.getCrawlDelaySeconds()).isNull();
+    }
+
+    @Test
+    void disallowAllBlocksEveryPath() {
+        assertThat(RobotsRules.DISALLOW_ALL.isAllowed("/")).isFalse();
+        assertThat(RobotsRules.DISALLOW_ALL.isAllowed("/tin-tuc?page=2")).isFalse();
+        assertThat(RobotsRules.ALLOW_ALL.isAllowed("/tin-tuc")).isTrue();
+    }
+}
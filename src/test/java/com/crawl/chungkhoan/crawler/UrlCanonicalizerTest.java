@@ -0,0 +1,63 @@
+package com.crawl.chungkhoan.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlCanonicalizerTest {
+
+    @Test
+    void lowercasesSchemeAndHostButNotPath() {
+        assertThat(UrlCanonicalizer.canonicalize("HTTPS://CafeF.VN/Tin-Tuc.chn"))
+                .isEqualTo("https://cafef.vn/Tin-Tuc.chn");
+    }
+
+    @Test
+    void dropsDefaultPortAndKeepsOtherPorts() {
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com:80/a")).isEqualTo("http://example.com/a");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com:443/a")).isEqualTo("https://example.com/a");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com:8443/a")).isEqualTo("https://example.com:8443/a");
+        assertThat(UrlCanonicalizer.canonicalize("http://example.com:443/a")).isEqualTo("http://example.com:443/a");
+    }
+
+    @Test
+    void normalizesPathAndTrailingDotHost() {
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com")).isEqualTo("https://example.com/");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com./a/./b/../c"))
+                .isEqualTo("https://example.com/a/c");
+    }
+
+    @Test
+    void stripsFragmentAndTrackingParamsAndSortsQuery() {
+        assertThat(UrlCanonicalizer.canonicalize(
+                "https://example.com/a?b=2&utm_source=fb&a=1&FBCLID=x&gidzl=y#top"))
+                .isEqualTo("https://example.com/a?a=1&b=2");
+        assertThat(UrlCanonicalizer.canonicalize("https://example.com/a?utm_medium=x&&gclid=y"))
+                .isEqualTo("https://example.com/a");
+    }
+
+    @Test
+    void fallsBackToFragmentlessInputWhenNotAnAbsoluteUrl() {
+        assertThat(UrlCanonicalizer.canonicalize(" /relative/path#x ")).isEqualTo("/relative/path");
+        assertThat(UrlCanonicalizer.canonicalize("http://bad host/a b#x")).isEqualTo("http://bad host/a b");
+        assertThat(UrlCanonicalizer.canonicalize(null)).isNull();
+    }
+
+    @Test
+    void variantsOfSameUrlShareHash() {
+        String hash = UrlCanonicalizer.urlHash("https://vnexpress.net/tin-1.html");
+
+        assertThat(hash).hasSize(32);
+        assertThat(UrlCanonicalizer.urlHash("HTTPS://VnExpress.net:443/tin-1.html?utm_campaign=x#comments"))
+                .isEqualTo(hash);
+        assertThat(UrlCanonicalizer.urlHash("https://vnexpress.net/tin-2.html")).isNotEqualTo(hash);
+        assertThat(UrlCanonicalizer.urlHash(null)).isNull();
+    }
+
+    @Test
+    void siteOfStripsWww() {
+        assertThat(UrlCanonicalizer.siteOf("https://WWW.CafeF.vn/a")).isEqualTo("cafef.vn");
+        assertThat(UrlCanonicalizer.siteOf("not a url")).isNull();
+        assertThat(UrlCanonicalizer.siteOf(null)).isNull();
+    }
+}
@@ -0,0 +1,126 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.crawler.FetchResult;
+import com.crawl.chungkhoan.crawler.PageFetcher;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import com.crawl.chungkhoan.repository.CrawlSourceRepository;
+import com.crawl.chungkhoan.repository.NewsRepository;
+import com.crawl.chungkhoan.storage.InMemoryStorage;
+import com.crawl.chungkhoan.storage.StoragePersistence;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ArticleDetailServiceTest {
+
+    private static final String PAGE = "<html><head>"
+            + "<meta property=\"article:published_time\" content=\"2024-05-01T09:30:00\"></head><body>"
+            + "<div class=\"body\"><p>Đoạn một</p><script>x()</script><p>Đoạn hai</p></div>"
+            + "<div class=\"detail-content\"><p>Không lấy</p></div></body></html>";
+
+    private final NewsRepository newsRepository = mock(NewsRepository.class);
+    private final CrawlSourceRepository crawlSourceRepository = mock(CrawlSourceRepository.class);
+    private final PageFetcher pageFetcher = mock(PageFetcher.class);
+
+    private ArticleDetailService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        service = new ArticleDetailService(newsRepository, crawlSourceRepository, pageFetcher);
+        ReflectionTestUtils.setField(service, "maxAttempts", 2);
+
+        FetchResult page = mock(FetchResult.class);
+        when(page.parse()).thenAnswer(invocation -> Jsoup.parse(PAGE, "https://example.com/"));
+        when(pageFetcher.fetchBackground(anyString())).thenReturn(page);
+        when(newsRepository.updateIfPresent(any())).thenReturn(true);
+        when(crawlSourceRepository.findAll()).thenReturn(List.of(
+                CrawlSource.builder().name("cafef").contentSelector(".body").build()));
+    }
+
+    @Test
+    void savesUpdatedCopyWithoutMutatingStoredInstance() {
+        News stored = news(1L);
+
+        service.fetchDetail(stored);
+
+        ArgumentCaptor<News> saved = ArgumentCaptor.forClass(News.class);
+        verify(newsRepository).updateIfPresent(saved.capture());
+        assertThat(saved.getValue()).isNotSameAs(stored);
+        assertThat(saved.getValue().getId()).isEqualTo(1L);
+        assertThat(saved.getValue().getContent()).isEqualTo("Đoạn một\nĐoạn hai");
+        assertThat(saved.getValue().getPublishedAt()).isEqualTo("2024-05-01T09:30");
+        assertThat(saved.getValue().getTags()).isNotSameAs(stored.getTags());
+
+        assertThat(stored.getContent()).isNull();
+        assertThat(stored.getPublishedAt()).isEqualTo("2024-01-01T00:00");
+    }
+
+    @Test
+    void contentSelectorResolvedOncePerBackfillCycle() {
+        service.fetchDetail(news(1L));
+        service.fetchDetail(news(2L));
+        service.fetchDetail(news(3L));
+        verify(crawlSourceRepository, times(1)).findAll();
+
+        service.backfill();
+        service.fetchDetail(news(4L));
+        verify(crawlSourceRepository, times(2)).findAll();
+    }
+
+    @Test
+    void givesUpWithEmptyContentCopyAfterMaxAttempts() throws IOException {
+        when(pageFetcher.fetchBackground(anyString())).thenThrow(new IOException("HTTP 500"));
+        News stored = news(1L);
+
+        service.fetchDetail(stored);
+        service.fetchDetail(stored);
+
+        ArgumentCaptor<News> saved = ArgumentCaptor.forClass(News.class);
+        verify(newsRepository).updateIfPresent(saved.capture());
+        assertThat(saved.getValue().getContent()).isEmpty();
+        assertThat(stored.getContent()).isNull();
+    }
+
+    @Test
+    void articleDeletedDuringFetchIsNotRecreated() throws IOException {
+        InMemoryStorage storage = new InMemoryStorage(new StoragePersistence());
+        NewsRepository repository = new NewsRepository(storage);
+        News stored = repository.save(news(0L).toBuilder().id(null).build());
+        FetchResult page = mock(FetchResult.class);
+        when(page.parse()).thenAnswer(invocation -> Jsoup.parse(PAGE, "https://example.com/"));
+        when(pageFetcher.fetchBackground(anyString())).thenAnswer(invocation -> {
+            repository.deleteById(stored.getId());
+            return page;
+        });
+
+        new ArticleDetailService(repository, crawlSourceRepository, pageFetcher).fetchDetail(stored);
+
+        assertThat(repository.findById(stored.getId())).isEmpty();
+        assertThat(repository.count()).isZero();
+    }
+
+    private static News news(long id) {
+        return News.builder()
+                .id(id)
+                .title("Tin " + id)
+                .url("https://example.com/" + id)
+                .source("CAFEF")
+                .publishedAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                .build();
+    }
+}
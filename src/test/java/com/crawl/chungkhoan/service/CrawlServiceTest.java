@@ -0,0 +1,97 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.crawler.CrawlExecutor;
+import com.crawl.chungkhoan.crawler.CrawlResult;
+import com.crawl.chungkhoan.crawler.FeedReader;
+import com.crawl.chungkhoan.crawler.FetchResult;
+import com.crawl.chungkhoan.crawler.NewsExtractor;
+import com.crawl.chungkhoan.crawler.PageFetcher;
+import com.crawl.chungkhoan.crawler.SeenUrlFilter;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import com.crawl.chungkhoan.repository.CrawlSourceRepository;
+import com.crawl.chungkhoan.repository.NewsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CrawlServiceTest {
+
+    private final NewsRepository newsRepository = mock(NewsRepository.class);
+    private final PageFetcher pageFetcher = mock(PageFetcher.class);
+    private final NewsExtractor newsExtractor = mock(NewsExtractor.class);
+    private final SeenUrlFilter seenUrlFilter = mock(SeenUrlFilter.class);
+
+    private final CrawlSource source = CrawlSource.builder()
+            .name("test").url("https://example.com/").type(CrawlSource.SourceType.NEWS).build();
+    private final FetchResult page = mock(FetchResult.class);
+
+    private CrawlService crawlService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        crawlService = new CrawlService(newsRepository, mock(CrawlSourceRepository.class), mock(CrawlExecutor.class),
+                pageFetcher, newsExtractor, mock(FeedReader.class), seenUrlFilter, mock(ArticleDetailService.class));
+        when(page.isChanged()).thenReturn(true);
+        when(pageFetcher.fetchIfChanged(anyString(), anyString())).thenReturn(page);
+    }
+
+    @Test
+    void commitsValidatorsAfterSave() throws IOException {
+        News news = News.builder().title("t").url("https://example.com/a").build();
+        when(newsExtractor.extract(page, source, 5)).thenReturn(List.of(news));
+        when(newsRepository.saveIfAbsent(news)).thenReturn(true);
+
+        assertThat(crawlService.crawlSource(source, 5)).isEqualTo(1);
+        verify(pageFetcher).commit(page);
+    }
+
+    @Test
+    void parseFailureDoesNotCommit() throws IOException {
+        when(newsExtractor.extract(any(FetchResult.class), any(), anyInt())).thenThrow(new IOException("bad html"));
+
+        assertThat(crawlService.crawlSource(source, 5)).isZero();
+        verify(pageFetcher, never()).commit(page);
+    }
+
+    @Test
+    void saveFailureDoesNotCommit() throws IOException {
+        News news = News.builder().title("t").url("https://example.com/a").build();
+        when(newsExtractor.extract(page, source, 5)).thenReturn(List.of(news));
+        when(newsRepository.saveIfAbsent(news)).thenThrow(new IllegalStateException("write failed"));
+
+        assertThat(crawlService.crawlSource(source, 5)).isZero();
+        verify(pageFetcher, never()).commit(page);
+    }
+
+    @Test
+    void crawlStaticLeavesCommitToCaller() throws IOException {
+        when(newsExtractor.extract(page, source, 5)).thenReturn(List.of());
+
+        CrawlResult result = crawlService.crawlStatic(source, 5);
+
+        assertThat(result.getPage()).isSameAs(page);
+        verify(pageFetcher, never()).commit(any());
+    }
+
+    @Test
+    void fetchFailureIsReportedAsFailedNotEmpty() throws IOException {
+        when(pageFetcher.fetchIfChanged(anyString(), anyString())).thenThrow(new IOException("HTTP 503"));
+
+        CrawlResult result = crawlService.crawlStatic(source, 5);
+
+        assertThat(result.isFailed()).isTrue();
+        assertThat(CrawlResult.EMPTY.isFailed()).isFalse();
+    }
+}
@@ -0,0 +1,83 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.crawler.CrawlExecutor;
+import com.crawl.chungkhoan.crawler.CrawlResult;
+import com.crawl.chungkhoan.crawler.FetchResult;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.repository.CrawlSourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HybridCrawlServiceTest {
+
+    private final CrawlService crawlService = mock(CrawlService.class);
+    private final SeleniumCrawlService seleniumCrawlService = mock(SeleniumCrawlService.class);
+    private final CrawlSource source = CrawlSource.builder()
+            .id(1L).name("test").url("https://example.com/").type(CrawlSource.SourceType.NEWS).build();
+
+    private HybridCrawlService hybridCrawlService;
+
+    @BeforeEach
+    void setUp() {
+        hybridCrawlService = new HybridCrawlService(mock(CrawlSourceRepository.class), mock(CrawlExecutor.class),
+                crawlService, seleniumCrawlService);
+        ReflectionTestUtils.setField(hybridCrawlService, "minItems", 3);
+        ReflectionTestUtils.setField(hybridCrawlService, "recheckMinutes", 360L);
+    }
+
+    @Test
+    void staticResultCommitted() {
+        CrawlResult result = new CrawlResult(5, 2, true, mock(FetchResult.class));
+        when(crawlService.crawlStatic(source, 10)).thenReturn(result);
+
+        assertThat(hybridCrawlService.crawlSource(source, 10)).isEqualTo(2);
+        verify(crawlService).commit(result);
+    }
+
+    @Test
+    void escalationDoesNotCommit() {
+        CrawlResult result = new CrawlResult(1, 1, true, mock(FetchResult.class));
+        when(crawlService.crawlStatic(source, 10)).thenReturn(result);
+        when(seleniumCrawlService.crawlSource(source, 10)).thenReturn(4);
+
+        assertThat(hybridCrawlService.crawlSource(source, 10)).isEqualTo(5);
+        verify(crawlService, never()).commit(any());
+    }
+
+    @Test
+    void fetchFailureDoesNotEscalate() {
+        when(crawlService.crawlStatic(source, 10)).thenReturn(CrawlResult.FAILED);
+
+        assertThat(hybridCrawlService.crawlSource(source, 10)).isZero();
+        verify(seleniumCrawlService, never()).crawlSource(any(), anyInt());
+        verify(crawlService, never()).commit(any());
+
+        // Lần sau trang tĩnh có đủ bài: vẫn đi đường static, chưa từng bị ghim sang browser
+        when(crawlService.crawlStatic(source, 10)).thenReturn(new CrawlResult(5, 5, true, mock(FetchResult.class)));
+        assertThat(hybridCrawlService.crawlSource(source, 10)).isEqualTo(5);
+        verify(seleniumCrawlService, never()).crawlSource(any(), anyInt());
+    }
+
+    @Test
+    void fetchFailureDuringRecheckKeepsBrowserMode() {
+        ReflectionTestUtils.setField(hybridCrawlService, "recheckMinutes", 0L);
+        when(crawlService.crawlStatic(source, 10)).thenReturn(new CrawlResult(1, 0, true, mock(FetchResult.class)));
+        when(seleniumCrawlService.crawlSource(source, 10)).thenReturn(4);
+        hybridCrawlService.crawlSource(source, 10);
+
+        when(crawlService.crawlStatic(source, 10)).thenReturn(CrawlResult.FAILED);
+
+        assertThat(hybridCrawlService.crawlSource(source, 10)).isEqualTo(4);
+        verify(seleniumCrawlService, times(2)).crawlSource(source, 10);
+    }
+}
@@ -0,0 +1,140 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.dto.MarketPart;
+import com.crawl.chungkhoan.dto.MarketSnapshot;
+import com.crawl.chungkhoan.model.StockQuote;
+import com.crawl.chungkhoan.storage.TickStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MarketSnapshotServiceTest {
+
+    private final StockMarketService stockMarketService = mock(StockMarketService.class);
+    private MarketSnapshotService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new MarketSnapshotService(stockMarketService, mock(TickStore.class));
+        ReflectionTestUtils.setField(service, "ttlSeconds", 30L);
+        ReflectionTestUtils.setField(service, "maxStaleSeconds", 600L);
+        ReflectionTestUtils.setField(service, "loadTimeoutSeconds", 5L);
+        ReflectionTestUtils.setField(service, "partTimeoutMs", 300L);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void emptyRefreshPastMaxStaleIsThrottled() throws Exception {
+        MarketSnapshot expired = MarketSnapshot.builder()
+                .type(MarketSnapshotService.STOCKS)
+                .data(List.of(quote("VNM", 70)))
+                .asOf(LocalDateTime.now().minusHours(1))
+                .etag("\"old\"")
+                .build();
+        snapshots().put(MarketSnapshotService.STOCKS, expired);
+        when(stockMarketService.getStockData()).thenReturn(List.of());
+
+        // Lần đầu scrape (trả rỗng, giữ bản cũ), các lần sau trong cùng TTL không scrape lại
+        assertThat(service.get(MarketSnapshotService.STOCKS)).isSameAs(expired);
+        assertThat(service.get(MarketSnapshotService.STOCKS)).isSameAs(expired);
+        assertThat(service.get(MarketSnapshotService.STOCKS)).isSameAs(expired);
+
+        verify(stockMarketService, times(1)).getStockData();
+    }
+
+    @Test
+    void failedRefreshWithoutSnapshotIsThrottled() {
+        when(stockMarketService.getStockData()).thenThrow(new IllegalStateException("source down"));
+
+        assertThatThrownBy(() -> service.get(MarketSnapshotService.STOCKS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("source down");
+        assertThatThrownBy(() -> service.get(MarketSnapshotService.STOCKS))
+                .isInstanceOf(ExecutionException.class)
+                .hasRootCauseMessage("source down");
+
+        verify(stockMarketService, times(1)).getStockData();
+    }
+
+    @Test
+    void etagIsDigestOfDataAndAsOf() throws Exception {
+        // "Aa" và "BB" cùng String.hashCode() nên hai list có cùng hashCode()
+        List<StockQuote> aa = List.of(quote("Aa", 10));
+        List<StockQuote> bb = List.of(quote("BB", 10));
+        LocalDateTime asOf = LocalDateTime.of(2024, 5, 2, 9, 15);
+        String etag = service.etag(MarketSnapshotService.STOCKS, bb, asOf);
+
+        assertThat(aa.hashCode()).isEqualTo(bb.hashCode());
+        assertThat(service.etag(MarketSnapshotService.STOCKS, aa, asOf)).isNotEqualTo(etag);
+        assertThat(service.etag(MarketSnapshotService.STOCKS, List.of(quote("BB", 10)), asOf))
+                .isEqualTo(etag).matches("\"stocks-[0-9a-f]{32}\"");
+        // Cùng dữ liệu nhưng asOf khác là representation khác
+        assertThat(service.etag(MarketSnapshotService.STOCKS, bb, asOf.plusSeconds(30))).isNotEqualTo(etag);
+    }
+
+    @Test
+    void refreshedSnapshotEtagMatchesItsAsOf() throws Exception {
+        when(stockMarketService.getStockData()).thenReturn(List.of(quote("VNM", 70)));
+
+        MarketSnapshot snapshot = service.refresh(MarketSnapshotService.STOCKS).get(5, TimeUnit.SECONDS);
+
+        assertThat(snapshot.getEtag()).isEqualTo(
+                service.etag(MarketSnapshotService.STOCKS, snapshot.getData(), snapshot.getAsOf()));
+    }
+
+    @Test
+    void slowPartTimesOutWithoutDelayingOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(stockMarketService.getStockData()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of(quote("VNM", 70));
+        });
+        when(stockMarketService.getBondData()).thenReturn(List.of(Map.of("name", "bond")));
+        when(stockMarketService.getFundData()).thenThrow(new IllegalStateException("funds down"));
+
+        long startedAt = System.nanoTime();
+        Map<String, MarketPart> parts = service.getAll();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        assertThat(parts.get(MarketSnapshotService.STOCKS).getStatus()).isEqualTo(MarketPart.Status.TIMEOUT);
+        assertThat(parts.get(MarketSnapshotService.BONDS).getStatus()).isEqualTo(MarketPart.Status.OK);
+        assertThat(parts.get(MarketSnapshotService.BONDS).getData()).hasSize(1);
+        assertThat(parts.get(MarketSnapshotService.FUNDS).getStatus()).isEqualTo(MarketPart.Status.ERROR);
+        assertThat(parts.get(MarketSnapshotService.FUNDS).getError()).isEqualTo("funds down");
+        assertThat(elapsedMs).isLessThan(3000);
+
+        // Hết hạn chỉ ảnh hưởng response, lần làm mới dùng chung vẫn chạy xong
+        release.countDown();
+        assertThat(service.get(MarketSnapshotService.STOCKS).getData()).hasSize(1);
+        verify(stockMarketService, times(1)).getStockData();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, MarketSnapshot> snapshots() {
+        return (Map<String, MarketSnapshot>) ReflectionTestUtils.getField(service, "snapshots");
+    }
+
+    private static StockQuote quote(String symbol, double price) {
+        return StockQuote.builder().symbol(symbol).price(price).build();
+    }
+}
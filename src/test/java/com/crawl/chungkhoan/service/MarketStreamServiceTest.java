@@ -0,0 +1,133 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.dto.MarketSnapshot;
+import com.crawl.chungkhoan.model.StockQuote;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MarketStreamServiceTest {
+
+    private final MarketSnapshotService marketSnapshotService = mock(MarketSnapshotService.class);
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    private MarketStreamService streamService;
+    private int price = 10;
+
+    @BeforeEach
+    void setUp() {
+        streamService = new MarketStreamService(marketSnapshotService) {
+            @Override
+            SseEmitter newEmitter(long timeoutMs) {
+                // Client đầu tiên không bao giờ đọc: send treo cho đến khi bị interrupt
+                RecordingEmitter emitter = new RecordingEmitter(emitters.isEmpty());
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+        ReflectionTestUtils.setField(streamService, "bufferSize", 64);
+        ReflectionTestUtils.setField(streamService, "emitterTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(streamService, "senderCount", 1);
+        ReflectionTestUtils.setField(streamService, "maxSenderCount", 8);
+        ReflectionTestUtils.setField(streamService, "sendTimeoutMs", 500L);
+        streamService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    void stalledConsumerDoesNotStarveOthers() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            streamService.subscribe();
+        }
+        RecordingEmitter stalled = emitters.get(0);
+
+        publish();
+        assertThat(stalled.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int round = 0; round < 4; round++) {
+            publish();
+        }
+
+        // Chỉ có một luồng thường trực và nó đang kẹt ở client treo, client khác vẫn nhận đủ
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+            assertThat(emitters.get(1).sent.get()).isEqualTo(5);
+            assertThat(emitters.get(2).sent.get()).isEqualTo(5);
+        });
+        assertThat(stalled.sent.get()).isZero();
+    }
+
+    @Test
+    void stalledConsumerEvictedAfterSendTimeout() throws InterruptedException {
+        streamService.subscribe();
+        streamService.subscribe();
+        RecordingEmitter stalled = emitters.get(0);
+
+        publish();
+        assertThat(stalled.blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        streamService.evictStalled();
+        assertThat(streamService.getStats()).containsEntry("subscribers", 2);
+
+        Thread.sleep(600);
+        streamService.evictStalled();
+
+        assertThat(streamService.getStats())
+                .containsEntry("subscribers", 1)
+                .containsEntry("droppedSubscribers", 1L);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> stalled.interrupted);
+
+        // Client còn lại tiếp tục nhận
+        publish();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> emitters.get(1).sent.get() == 2);
+    }
+
+    private void publish() {
+        StockQuote quote = StockQuote.builder().symbol("VNM").price(price++).build();
+        when(marketSnapshotService.getNow(MarketSnapshotService.STOCKS))
+                .thenReturn(MarketSnapshot.builder().data(List.of(quote)).build());
+        streamService.poll();
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+        private final boolean stall;
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final AtomicInteger sent = new AtomicInteger();
+        private volatile boolean interrupted;
+
+        RecordingEmitter(boolean stall) {
+            this.stall = stall;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (stall) {
+                blocked.countDown();
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    throw new InterruptedIOException("interrupted");
+                }
+            }
+            sent.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.crawl.chungkhoan.service;
+
+import com.crawl.chungkhoan.crawler.CrawlExecutor;
+import com.crawl.chungkhoan.crawler.NewsExtractor;
+import com.crawl.chungkhoan.crawler.PolitenessManager;
+import com.crawl.chungkhoan.crawler.ResourceBlockingPolicy;
+import com.crawl.chungkhoan.crawler.WebDriverPool;
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import com.crawl.chungkhoan.repository.CrawlSourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SeleniumCrawlServiceTest {
+
+    private static final String PAGE = "<html><body>"
+            + "<article><h3><a href=\"/a\">Bài một</a></h3><p class=\"sapo\">Mô tả</p></article>"
+            + "<article><h3><a href=\"/b\">Bài hai</a></h3></article>"
+            + "<article><h3><a href=\"/c\">Bài ba</a></h3></article>"
+            + "</body></html>";
+
+    private final CrawlService crawlService = mock(CrawlService.class);
+    private final WebDriverPool webDriverPool = mock(WebDriverPool.class);
+    private final WebDriverPool.PooledDriver pooled = mock(WebDriverPool.PooledDriver.class);
+    private final WebDriver driver = mock(WebDriver.class);
+    private final WebElement rendered = mock(WebElement.class);
+
+    private final CrawlSource source = CrawlSource.builder()
+            .name("test")
+            .url("https://example.com/")
+            .type(CrawlSource.SourceType.NEWS)
+            .build();
+
+    private SeleniumCrawlService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ResourceBlockingPolicy blocking = mock(ResourceBlockingPolicy.class);
+        when(blocking.patternsFor(any())).thenReturn(List.of());
+        when(webDriverPool.borrow()).thenReturn(pooled);
+        when(pooled.getDriver()).thenReturn(driver);
+        when(driver.findElements(any(By.class))).thenReturn(List.of(rendered, rendered, rendered));
+        when(driver.getPageSource()).thenReturn(PAGE);
+        when(driver.getCurrentUrl()).thenReturn("https://example.com/");
+        when(crawlService.saveNew(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).size());
+
+        service = new SeleniumCrawlService(mock(CrawlSourceRepository.class), mock(CrawlExecutor.class),
+                new NewsExtractor(), crawlService, mock(PolitenessManager.class), webDriverPool, blocking);
+        ReflectionTestUtils.setField(service, "readyTimeoutMs", 1000L);
+    }
+
+    @Test
+    void pageSourceModeReadsRenderedHtmlOnceAndParsesWithJsoup() {
+        ReflectionTestUtils.setField(service, "extractionMode", SeleniumCrawlService.ExtractionMode.PAGE_SOURCE);
+
+        int saved = service.crawlSource(source, 10);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<News>> captor = ArgumentCaptor.forClass(List.class);
+        verify(crawlService).saveNew(captor.capture());
+        assertThat(saved).isEqualTo(3);
+        assertThat(captor.getValue()).extracting(News::getTitle).containsExactly("Bài một", "Bài hai", "Bài ba");
+        assertThat(captor.getValue().get(0).getUrl()).isEqualTo("https://example.com/a");
+        assertThat(captor.getValue().get(0).getDescription()).isEqualTo("Mô tả");
+
+        // Một lần getPageSource, không có round trip nào cho từng bài
+        verify(driver, times(1)).getPageSource();
+        verify(driver, never()).findElement(any());
+        verifyNoInteractions(rendered);
+    }
+
+    @Test
+    void pageSourceModeRespectsItemLimit() {
+        ReflectionTestUtils.setField(service, "extractionMode", SeleniumCrawlService.ExtractionMode.PAGE_SOURCE);
+
+        assertThat(service.crawlSource(source, 2)).isEqualTo(2);
+    }
+}
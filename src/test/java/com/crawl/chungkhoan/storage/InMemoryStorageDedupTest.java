@@ -0,0 +1,98 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.crawler.UrlCanonicalizer;
+import com.crawl.chungkhoan.model.News;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryStorageDedupTest {
+
+    private InMemoryStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage(new StoragePersistence());
+        storage.init();
+    }
+
+    @Test
+    void variantsOfSameUrlAreOneArticle() {
+        assertThat(storage.saveNewsIfAbsent(news("https://cafef.vn/tin-1.chn"))).isTrue();
+
+        assertThat(storage.saveNewsIfAbsent(news("HTTPS://CafeF.vn:443/tin-1.chn?utm_source=zalo#comments"))).isFalse();
+        assertThat(storage.saveNewsIfAbsent(news("https://cafef.vn/tin-2.chn"))).isTrue();
+        assertThat(storage.countNews()).isEqualTo(2);
+        assertThat(storage.findNewsByUrl("https://cafef.vn/tin-1.chn?fbclid=abc")).isPresent();
+        assertThat(storage.findNewsByUrlHash(UrlCanonicalizer.urlHash("https://cafef.vn/tin-2.chn"))).isPresent();
+        assertThat(storage.findNewsByUrl("https://cafef.vn/tin-3.chn")).isEmpty();
+    }
+
+    @Test
+    void concurrentInsertsOfSameUrlSaveExactlyOnce() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String url = "https://vnexpress.net/tin-1.html" + (i % 2 == 0 ? "" : "?utm_medium=" + i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return storage.saveNewsIfAbsent(news(url));
+                }));
+            }
+            start.countDown();
+
+            int saved = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    saved++;
+                }
+            }
+
+            assertThat(saved).isEqualTo(1);
+            assertThat(storage.countNews()).isEqualTo(1);
+            assertThat(storage.findAllNews()).hasSize(1);
+            assertThat(storage.countNewsBySource("TEST")).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deletedArticleCanBeSavedAgain() {
+        News first = news("https://example.com/a");
+        storage.saveNewsIfAbsent(first);
+
+        storage.deleteNews(first.getId());
+
+        assertThat(storage.findNewsByUrl("https://example.com/a")).isEmpty();
+        assertThat(storage.saveNewsIfAbsent(news("https://example.com/a"))).isTrue();
+    }
+
+    @Test
+    void unparseableUrlIsRejected() {
+        assertThat(storage.saveNewsIfAbsent(news(null))).isFalse();
+        assertThat(storage.countNews()).isZero();
+    }
+
+    private static News news(String url) {
+        return News.builder()
+                .title("Tin " + url)
+                .url(url)
+                .source("TEST")
+                .publishedAt(LocalDateTime.of(2024, 5, 1, 9, 0))
+                .crawledAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.model.News;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryStoragePagingTest {
+
+    private InMemoryStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage(new StoragePersistence());
+        storage.init();
+    }
+
+    @Test
+    void cursorPagesWalkWholeIndexInOrder() {
+        for (int i = 0; i < 25; i++) {
+            // Hai tin cùng thời điểm mỗi phút, vài tin không có ngày xếp cuối
+            storage.saveNews(news("https://example.com/" + i, i < 22 ? i / 2 : null));
+        }
+
+        List<News> walked = new ArrayList<>();
+        NewsCursor cursor = null;
+        List<News> page;
+        do {
+            page = storage.findNewsPageAfter(cursor, 4);
+            walked.addAll(page);
+            if (!page.isEmpty()) {
+                cursor = NewsCursor.parse(NewsCursor.of(page.get(page.size() - 1)).toString());
+            }
+        } while (page.size() == 4);
+
+        assertThat(walked).containsExactlyElementsOf(storage.findAllNews());
+        assertThat(walked).hasSize(25);
+    }
+
+    @Test
+    void cursorPageMatchesOffsetPage() {
+        for (int i = 0; i < 10; i++) {
+            storage.saveNews(news("https://example.com/" + i, i));
+        }
+
+        List<News> first = storage.findNewsPageAfter(null, 3);
+        List<News> second = storage.findNewsPageAfter(NewsCursor.of(first.get(2)), 3);
+
+        assertThat(first).containsExactlyElementsOf(storage.findNewsPage(0, 3));
+        assertThat(second).containsExactlyElementsOf(storage.findNewsPage(3, 3));
+    }
+
+    @Test
+    void cursorStaysValidWhenItsNewsIsDeletedOrNewerNewsArrives() {
+        for (int i = 0; i < 6; i++) {
+            storage.saveNews(news("https://example.com/" + i, i));
+        }
+        List<News> first = storage.findNewsPageAfter(null, 3);
+        NewsCursor cursor = NewsCursor.of(first.get(2));
+
+        storage.deleteNews(first.get(2).getId());
+        storage.saveNews(news("https://example.com/new", 100));
+
+        assertThat(storage.findNewsPageAfter(cursor, 3))
+                .containsExactlyElementsOf(storage.findNewsPage(3, 3));
+    }
+
+    @Test
+    void sourceCursorSeeksWithinThatSourceOnly() {
+        for (int i = 0; i < 12; i++) {
+            News item = news("https://example.com/" + i, i);
+            item.setSource(i % 3 == 0 ? "A" : "B");
+            storage.saveNews(item);
+        }
+
+        List<News> walked = new ArrayList<>();
+        NewsCursor cursor = null;
+        List<News> page;
+        do {
+            page = storage.findNewsBySourceAfter("B", cursor, 3);
+            walked.addAll(page);
+            if (!page.isEmpty()) {
+                cursor = NewsCursor.of(page.get(page.size() - 1));
+            }
+        } while (page.size() == 3);
+
+        assertThat(walked).containsExactlyElementsOf(storage.findNewsBySource("B"));
+        assertThat(walked).hasSize(8).allMatch(item -> item.getSource().equals("B"));
+        assertThat(storage.findNewsBySourceAfter("B", NewsCursor.of(walked.get(2)), 2))
+                .containsExactlyElementsOf(storage.findNewsBySource("B", 3, 2));
+        assertThat(storage.findNewsBySourceAfter("MISSING", null, 3)).isEmpty();
+    }
+
+    @Test
+    void cursorRoundTripsAndRejectsGarbage() {
+        News undated = storage.saveNews(news("https://example.com/undated", null));
+
+        assertThat(NewsCursor.parse("2024-05-01T09:30_42").toString()).isEqualTo("2024-05-01T09:30_42");
+        assertThat(NewsCursor.of(undated).toString()).isEqualTo("_" + undated.getId());
+        assertThatThrownBy(() -> NewsCursor.parse("42")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> NewsCursor.parse("yesterday_42")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static News news(String url, Integer minute) {
+        return News.builder()
+                .title("Tin " + url)
+                .url(url)
+                .source("TEST")
+                .publishedAt(minute != null ? LocalDateTime.of(2024, 5, 1, 9, 0).plusMinutes(minute) : null)
+                .crawledAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.model.News;
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NewsSearchIndexTest {
+
+    private final NewsSearchIndex index = new NewsSearchIndex();
+
+    @Test
+    void foldsDiacriticsAndDStroke() {
+        add(1, "Đầu tư cổ phiếu ngân hàng");
+
+        assertThat(NewsSearchIndex.fold("đầu")).isEqualTo("dau");
+        assertThat(NewsSearchIndex.fold(NewsSearchIndex.normalize("ĐẦU TƯ"))).isEqualTo("dau tu");
+        assertThat(ids("dau tu")).containsExactly(1L);
+        assertThat(ids("ĐẦU TƯ")).containsExactly(1L);
+        assertThat(ids("co phieu ngan hang")).containsExactly(1L);
+        // Từ khóa có dấu khớp chính xác, không khớp từ khác dấu
+        assertThat(ids("cố")).isEmpty();
+    }
+
+    @Test
+    void normalizesDecomposedInputToNfc() {
+        // "cổ phiếu" viết bằng ký tự tổ hợp (NFD)
+        add(1, "Thị trường cổ phiếu");
+
+        assertThat(ids("cổ phiếu")).containsExactly(1L);
+        assertThat(ids("co phieu")).containsExactly(1L);
+        assertThat(ids("cổ")).containsExactly(1L);
+    }
+
+    @Test
+    void matchesQuotedPhrasesOnlyWhenAdjacent() {
+        add(1, "Lợi nhuận tăng trưởng mạnh");
+        add(2, "Tăng vốn, trưởng phòng mới");
+
+        assertThat(ids("tăng trưởng")).containsExactly(2L, 1L);
+        assertThat(ids("\"tăng trưởng\"")).containsExactly(1L);
+        assertThat(ids("\"tang truong\"")).containsExactly(1L);
+        assertThat(ids("\"trưởng tăng\"")).isEmpty();
+    }
+
+    @Test
+    void lastTermMatchesAsPrefix() {
+        add(1, "Chứng khoán phái sinh");
+        add(2, "Chứng chỉ quỹ");
+
+        assertThat(ids("chứng kh")).containsExactly(1L);
+        assertThat(ids("chung")).containsExactly(2L, 1L);
+        assertThat(ids("chu")).containsExactly(2L, 1L);
+        assertThat(ids("kho chứng")).isEmpty();
+    }
+
+    @Test
+    void prefixPastExpansionCapStillFindsEveryMatch() {
+        int count = NewsSearchIndex.MAX_PREFIX_EXPANSIONS + 10;
+        for (int i = 0; i < count; i++) {
+            add(i + 1, String.format("mã vn%03d", i));
+        }
+        add(1000, "không liên quan");
+
+        List<Long> found = ids("vn", 0, 1000);
+
+        assertThat(found).hasSize(count).doesNotContain(1000L);
+        // Vẫn theo thứ tự mới nhất trước
+        assertThat(found.get(0)).isEqualTo((long) count);
+        assertThat(ids("vn", 70, 10)).hasSize(count - 70);
+    }
+
+    @Test
+    void reindexAndRemoveUpdatePostings() {
+        News news = add(1, "Giá vàng tăng");
+        assertThat(ids("vàng")).containsExactly(1L);
+
+        news.setTitle("Giá dầu giảm");
+        index.index(news, key(news));
+        assertThat(ids("vàng")).isEmpty();
+        assertThat(ids("dau")).containsExactly(1L);
+
+        index.remove(1L);
+        assertThat(ids("dau")).isEmpty();
+        assertThat(ids("d")).isEmpty();
+    }
+
+    @Test
+    void newestFirstWithOffset() {
+        add(1, "VN-Index phiên sáng");
+        add(2, "VN-Index phiên chiều");
+        add(3, "VN-Index cuối tuần");
+
+        assertThat(ids("index")).containsExactly(3L, 2L, 1L);
+        assertThat(ids("index", 1, 1)).containsExactly(2L);
+    }
+
+    private News add(long id, String title) {
+        News news = News.builder()
+                .id(id)
+                .title(title)
+                .publishedAt(LocalDateTime.of(2024, 5, 1, 0, 0).plusMinutes(id))
+                .build();
+        index.index(news, key(news));
+        return news;
+    }
+
+    private static NewsKey key(News news) {
+        return new NewsKey(news.getPublishedAt(), news.getId());
+    }
+
+    private List<Long> ids(String query) {
+        return ids(query, 0, 100);
+    }
+
+    private List<Long> ids(String query, int offset, int limit) {
+        return index.search(query, offset, limit).stream().map(News::getId).toList();
+    }
+}
@@ -0,0 +1,210 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.model.CrawlSource;
+import com.crawl.chungkhoan.model.News;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StoragePersistenceTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<StoragePersistence> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(StoragePersistence::shutdown);
+    }
+
+    @Test
+    void replaysWriteAheadLogOnRestart() {
+        InMemoryStorage storage = open();
+        int defaultSources = storage.findAllSources().size();
+        News kept = storage.saveNews(news("https://example.com/a", 1));
+        News deleted = storage.saveNews(news("https://example.com/b", 2));
+        kept.setTitle("Đã sửa");
+        storage.saveNews(kept);
+        storage.deleteNews(deleted.getId());
+        close();
+
+        InMemoryStorage recovered = open();
+
+        assertThat(recovered.findAllNews()).extracting(News::getTitle).containsExactly("Đã sửa");
+        assertThat(recovered.findNewsByUrl("https://example.com/a")).isPresent();
+        assertThat(recovered.findAllSources()).hasSize(defaultSources);
+        assertThat(recovered.findUserByEmail("admin@crawl.com")).isPresent();
+        // Bộ đếm id tiếp tục sau id đã dùng
+        assertThat(recovered.saveNews(news("https://example.com/c", 3)).getId()).isGreaterThan(deleted.getId());
+    }
+
+    @Test
+    void snapshotRollsLogAndDeletesWhatItReplaces() throws IOException {
+        InMemoryStorage storage = open();
+        storage.saveNews(news("https://example.com/a", 1));
+        StoragePersistence persistence = opened.get(0);
+
+        persistence.snapshot();
+        assertThat(files()).containsExactly("snapshot-000000000002.snap", "wal-000000000002.log");
+
+        storage.saveNews(news("https://example.com/b", 2));
+        persistence.snapshot();
+        assertThat(files()).containsExactly("snapshot-000000000003.snap", "wal-000000000003.log");
+
+        // Thay đổi sau snapshot chỉ nằm trong segment mới
+        storage.saveNews(news("https://example.com/c", 3));
+        close();
+
+        InMemoryStorage recovered = open();
+        assertThat(recovered.findAllNews()).extracting(News::getUrl).containsExactlyInAnyOrder(
+                "https://example.com/a", "https://example.com/b", "https://example.com/c");
+        assertThat(recovered.countNewsBySource("TEST")).isEqualTo(3);
+    }
+
+    @Test
+    void clearAllIsReplayed() {
+        InMemoryStorage storage = open();
+        storage.saveNews(news("https://example.com/a", 1));
+        storage.clearAll();
+        storage.saveSource(CrawlSource.builder().name("After").url("https://example.com/").build());
+        close();
+
+        InMemoryStorage recovered = open();
+        assertThat(recovered.findAllNews()).isEmpty();
+        assertThat(recovered.findAllUsers()).isEmpty();
+        assertThat(recovered.findAllSources()).extracting(CrawlSource::getName).containsExactly("After");
+    }
+
+    @Test
+    void clearAllOrderedWithConcurrentWrites() throws Exception {
+        InMemoryStorage storage = open();
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                tasks.add(writers.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        storage.saveNews(news("https://example.com/" + thread + "/" + i, i));
+                    }
+                }));
+            }
+            for (int i = 0; i < 5; i++) {
+                storage.clearAll();
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+        List<String> live = storage.findAllNews().stream().map(News::getUrl).toList();
+        close();
+
+        // Thứ tự trong WAL phải trùng thứ tự áp dụng trong bộ nhớ
+        InMemoryStorage recovered = open();
+        assertThat(recovered.findAllNews()).extracting(News::getUrl).containsExactlyInAnyOrderElementsOf(live);
+    }
+
+    @Test
+    void failedLogWriteIsNotAppliedAndStopsFurtherWrites() throws IOException {
+        InMemoryStorage storage = open();
+        News kept = storage.saveNews(news("https://example.com/a", 1));
+        WriteAheadLog wal = (WriteAheadLog) ReflectionTestUtils.getField(opened.get(0), "wal");
+        ((FileChannel) ReflectionTestUtils.getField(wal, "channel")).close();
+
+        assertThatThrownBy(() -> storage.saveNews(news("https://example.com/b", 2)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> storage.saveNewsIfAbsent(news("https://example.com/c", 3)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> storage.deleteNews(kept.getId()))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Không ghi được thì không áp dụng: luồng đọc chỉ thấy những gì đã bền
+        assertThat(storage.findAllNews()).extracting(News::getUrl).containsExactly("https://example.com/a");
+        assertThat(storage.findNewsByUrl("https://example.com/c")).isEmpty();
+        assertThat(wal.failure()).isNotNull();
+    }
+
+    @Test
+    void snapshotDuringConcurrentWritesLosesNothing() throws Exception {
+        InMemoryStorage storage = open();
+        StoragePersistence persistence = opened.get(0);
+        ReflectionTestUtils.setField(persistence, "syncWrites", false);
+        ExecutorService writers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                tasks.add(writers.submit(() -> {
+                    for (int i = 0; i < 300; i++) {
+                        storage.saveNewsIfAbsent(news("https://example.com/" + thread + "/" + i, i));
+                    }
+                }));
+            }
+            for (int i = 0; i < 5; i++) {
+                persistence.snapshot();
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            writers.shutdown();
+        }
+        close();
+
+        assertThat(open().countNews()).isEqualTo(1200);
+    }
+
+    private InMemoryStorage open() {
+        StoragePersistence persistence = new StoragePersistence();
+        ReflectionTestUtils.setField(persistence, "enabled", true);
+        ReflectionTestUtils.setField(persistence, "directory", dir.toString());
+        ReflectionTestUtils.setField(persistence, "syncWrites", true);
+        ReflectionTestUtils.setField(persistence, "snapshotMinRecords", 1000L);
+        ReflectionTestUtils.setField(persistence, "snapshotOnShutdown", false);
+        opened.add(persistence);
+
+        InMemoryStorage storage = new InMemoryStorage(persistence);
+        storage.init();
+        return storage;
+    }
+
+    private void close() {
+        opened.forEach(StoragePersistence::shutdown);
+        opened.clear();
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static News news(String url, int minute) {
+        return News.builder()
+                .title("Tin " + url)
+                .url(url)
+                .source("TEST")
+                .publishedAt(LocalDateTime.of(2024, 5, 1, 9, 0).plusMinutes(minute))
+                .crawledAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,90 @@
+package com.crawl.chungkhoan.storage;
+
+import com.crawl.chungkhoan.dto.TickSummary;
+import com.crawl.chungkhoan.dto.TickWindow;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TickStoreTest {
+
+    private static final long OPEN = LocalDateTime.of(2024, 5, 2, 9, 15).toInstant(ZoneOffset.ofHours(7)).toEpochMilli();
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void latestReportsChangeSinceFirstTickOfDay() {
+        TickStore store = store(16);
+        store.record("FPT", OPEN, 100.0, 1_000);
+        store.record("FPT", OPEN + MINUTE, 102.5, 1_500);
+
+        TickSummary latest = store.latest("FPT");
+
+        assertThat(latest.getPrice()).isEqualTo(102.5);
+        assertThat(latest.getVolume()).isEqualTo(1_500);
+        assertThat(latest.getOpenPrice()).isEqualTo(100.0);
+        assertThat(latest.getChangeSinceOpen()).isEqualTo(2.5);
+        assertThat(latest.getChangePercentSinceOpen()).isEqualTo(2.5);
+        assertThat(store.latest("VNM")).isNull();
+        assertThat(store.changeSinceOpen("VNM")).isNaN();
+    }
+
+    @Test
+    void unchangedTicksAreSkipped() {
+        TickStore store = store(16);
+        store.record("FPT", OPEN, 100.0, 1_000);
+        store.record("FPT", OPEN + MINUTE, 100.0, 1_000);
+        store.record("FPT", OPEN + 2 * MINUTE, 100.0, 1_200);
+
+        assertThat(store.window("FPT", 0, Long.MAX_VALUE).getTimes()).containsExactly(OPEN, OPEN + 2 * MINUTE);
+    }
+
+    @Test
+    void ringBufferKeepsNewestTicksInTimeOrder() {
+        TickStore store = store(4);
+        for (int i = 0; i < 10; i++) {
+            store.record("FPT", OPEN + i * MINUTE, 100.0 + i, 1_000 + i);
+        }
+
+        TickWindow all = store.window("FPT", 0, Long.MAX_VALUE);
+
+        assertThat(all.getPrices()).containsExactly(106.0, 107.0, 108.0, 109.0);
+        assertThat(all.getVolumes()).containsExactly(1_006L, 1_007L, 1_008L, 1_009L);
+        // Giá mở cửa vẫn là tick đầu ngày dù đã bị ghi đè trong buffer
+        assertThat(store.changeSinceOpen("FPT")).isEqualTo(9.0);
+    }
+
+    @Test
+    void windowIsInclusiveOnBothEnds() {
+        TickStore store = store(8);
+        for (int i = 0; i < 6; i++) {
+            store.record("FPT", OPEN + i * MINUTE, 100.0 + i, 1_000);
+        }
+
+        assertThat(store.window("FPT", OPEN + MINUTE, OPEN + 3 * MINUTE).getPrices())
+                .containsExactly(101.0, 102.0, 103.0);
+        assertThat(store.window("FPT", OPEN + 10 * MINUTE, OPEN + 20 * MINUTE).getTimes()).isEmpty();
+        assertThat(store.window("VNM", 0, Long.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    void newMarketDayResetsOpenPrice() {
+        TickStore store = store(8);
+        store.record("FPT", OPEN, 100.0, 1_000);
+        store.record("FPT", OPEN + 6 * 60 * MINUTE, 110.0, 2_000);
+        // 9:15 hôm sau theo giờ Việt Nam
+        store.record("FPT", OPEN + 24 * 60 * MINUTE, 108.0, 100);
+
+        assertThat(store.latest("FPT").getOpenPrice()).isEqualTo(108.0);
+        assertThat(store.changeSinceOpen("FPT")).isZero();
+    }
+
+    private static TickStore store(int capacity) {
+        TickStore store = new TickStore();
+        ReflectionTestUtils.setField(store, "capacity", capacity);
+        return store;
+    }
+}
@@ -0,0 +1,124 @@
+package com.crawl.chungkhoan.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void groupCommitsConcurrentAppends() throws IOException {
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            for (int i = 0; i < 500; i++) {
+                futures.add(wal.append(("record-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            assertThat(wal.recordCount()).isEqualTo(500);
+            assertThat(wal.syncCount()).isLessThan(500);
+        }
+
+        assertThat(read(WriteAheadLog.segmentPath(dir, 1), false)).hasSize(500).startsWith("record-0");
+    }
+
+    @Test
+    void rollMovesLaterAppendsToNewSegment() throws IOException {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.append(bytes("a")).join();
+            assertThat(wal.roll().join()).isEqualTo(2L);
+            assertThat(wal.append(bytes("b")).join()).isEqualTo(2L);
+        }
+
+        assertThat(WriteAheadLog.segments(dir)).containsExactly(1L, 2L);
+        assertThat(read(WriteAheadLog.segmentPath(dir, 1), false)).containsExactly("a");
+        assertThat(read(WriteAheadLog.segmentPath(dir, 2), false)).containsExactly("b");
+    }
+
+    @Test
+    void tornTailIsTruncatedAndLogStaysWritable() throws IOException {
+        Path segment = WriteAheadLog.segmentPath(dir, 1);
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.append(bytes("first")).join();
+            wal.append(bytes("second")).join();
+        }
+        long validSize = Files.size(segment);
+
+        // Crash giữa lúc ghi: header báo 100 byte nhưng chỉ có 3
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(WriteAheadLog.HEADER_BYTES + 3).putInt(100).putInt(0).flip());
+        }
+
+        List<String> records = new ArrayList<>();
+        boolean complete = WriteAheadLog.readFrames(segment, payload -> records.add(text(payload)), true);
+
+        assertThat(complete).isFalse();
+        assertThat(records).containsExactly("first", "second");
+        assertThat(Files.size(segment)).isEqualTo(validSize);
+
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.append(bytes("third")).join();
+        }
+        assertThat(read(segment, false)).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void stopsAtCrcMismatch() throws IOException {
+        Path segment = WriteAheadLog.segmentPath(dir, 1);
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            wal.append(bytes("first")).join();
+            wal.append(bytes("second")).join();
+            wal.append(bytes("third")).join();
+        }
+        long size = Files.size(segment);
+
+        // Sửa một byte payload của record thứ hai
+        long offset = WriteAheadLog.HEADER_BYTES + "first".length() + WriteAheadLog.HEADER_BYTES;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'S'}), offset);
+        }
+
+        List<String> records = new ArrayList<>();
+        assertThat(WriteAheadLog.readFrames(segment, payload -> records.add(text(payload)), false)).isFalse();
+        assertThat(records).containsExactly("first");
+        assertThat(Files.size(segment)).isEqualTo(size);
+    }
+
+    @Test
+    void rejectsOversizedRecord() {
+        try (WriteAheadLog wal = new WriteAheadLog(dir, 1)) {
+            assertThat(wal.append(new byte[WriteAheadLog.MAX_RECORD_BYTES + 1])).isCompletedExceptionally();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static List<String> read(Path segment, boolean truncateTail) throws IOException {
+        List<String> records = new ArrayList<>();
+        assertThat(WriteAheadLog.readFrames(segment, payload -> records.add(text(payload)), truncateTail)).isTrue();
+        return records;
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] payload) {
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+}